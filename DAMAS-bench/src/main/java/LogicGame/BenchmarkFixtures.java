@@ -0,0 +1,54 @@
+package LogicGame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Positions and games the benchmarks run on. The game was played by the
+ * Engine at depth 6 after four random opening moves; the middle games are
+ * its positions after 20, 30 and 40 plies, with most pieces still on the
+ * board, kings appearing and the first forced captures.
+ *
+ * @version 1.0
+ */
+final class BenchmarkFixtures {
+
+	static final List<String> GAME = Arrays.asList(
+			"e3 d4", "f6 g5", "g3 h4", "b6 c5", "d4 b6", "a7 c5", "h4 f6", "e7 g5", "d2 e3", "g5 f4",
+			"e3 g5", "h6 f4", "c1 d2", "g7 h6", "f2 g3", "d6 e5", "e1 f2", "c7 b6", "f2 e3", "b6 a5",
+			"e3 g5", "h6 f4", "g1 f2", "c5 d4", "g3 h4", "b8 a7", "h4 g5", "a7 b6", "d2 e3", "f4 d2",
+			"f2 e3", "d4 f2", "c3 b4", "a5 c3", "b2 f6", "f2 g1", "a1 b2", "d2 c1", "g5 h6", "g1 d4",
+			"b2 c3", "d4 a1", "h2 g3", "a1 g7", "a3 b4", "c1 f4", "g3 e5", "g7 a5", "h6 g7", "f8 h6");
+
+	static final String[] MIDDLE_GAMES = {
+			"W:W21,22,23,24,25,26,28,29,32:B1,2,3,4,12,13,14,15,19",
+			"W:W16,21,22,25,27,28,29:B2,3,4,9,13,15,18,26",
+			"W:W11,12,21,25,28:B2,3,4,9,K18,K30" };
+
+	private BenchmarkFixtures() {
+	}
+
+	static ChessBoard board(String fen) {
+		ChessBoard board = new ChessBoard();
+		try {
+			board.setFen(fen);
+		} catch (CheckersException e) {
+			throw new IllegalArgumentException(fen, e);
+		}
+		return board;
+	}
+
+   /**
+    * Returns the square names of the pieces of the player to move.
+    */
+	static String[] piecesToMove(ChessBoard board) {
+		ArrayList<String> squares = new ArrayList<String>();
+		Position position = board.getPosition();
+		int pieces = position.getPieces(position.getSideToMove());
+		for (; pieces != 0; pieces &= pieces - 1) {
+			squares.add(Position.squareName(Integer.numberOfTrailingZeros(pieces)));
+		}
+		return squares.toArray(new String[0]);
+	}
+}
@@ -0,0 +1,62 @@
+package LogicGame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of saving and loading a game file with CheckersIO. The file
+ * lives in the temporary directory, so the numbers include the file
+ * system but mostly not the disk.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CheckersIOBenchmark {
+
+	private File file;
+	private final ArrayList<String> moves = new ArrayList<String>(BenchmarkFixtures.GAME);
+	private final CheckersIO io = new CheckersIO();
+
+	@Setup
+	public void setUp() throws IOException {
+		file = File.createTempFile("damas-bench", ".txt");
+		io.setOutputFile(file.getPath());
+		io.write(moves);
+	}
+
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Benchmark
+	public void write() throws IOException {
+		io.setOutputFile(file.getPath());
+		io.write(moves);
+	}
+
+	@Benchmark
+	public ArrayList<String> read() throws IOException {
+		io.setInputFile(file.getPath());
+		return io.read();
+	}
+}
@@ -0,0 +1,103 @@
+package LogicGame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the ChessBoard API used by the console and the server:
+ * playing moves, listing the moves of a piece and drawing the board.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ChessBoardBenchmark {
+
+	@Param({ "0", "1", "2" })
+	public int middleGame;
+
+	private ChessBoard board;
+	private String[] squares;
+	private Piece[] pieces;
+	private final StringBuilder text = new StringBuilder(4096);
+
+   /**
+    * A new board for every invocation, made outside the measured time.
+    */
+	@State(Scope.Thread)
+	public static class NewBoard {
+		ChessBoard board;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			board = new ChessBoard();
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		board = BenchmarkFixtures.board(BenchmarkFixtures.MIDDLE_GAMES[middleGame]);
+		squares = BenchmarkFixtures.piecesToMove(board);
+		pieces = new Piece[squares.length];
+		for (int i = 0; i < squares.length; i++) {
+			pieces[i] = board.getCell(squares[i]).getPiece();
+		}
+	}
+
+   /**
+    * Plays the whole fixture game on a new board; the time is per move.
+    * The 50 moves of an invocation take far longer than the timestamps
+    * taken around it for its setup.
+    */
+	@Benchmark
+	@OperationsPerInvocation(50)
+	public ChessBoard movePiece(NewBoard newBoard) throws CheckersException {
+		ChessBoard game = newBoard.board;
+		boolean player = Piece.WHITE;
+		for (String move : BenchmarkFixtures.GAME) {
+			game.movePiece(move.substring(0, 2), move.substring(3, 5), player);
+			player = !player;
+		}
+		return game;
+	}
+
+   /**
+    * Lists the moves of every piece of the player to move.
+    */
+	@Benchmark
+	public void getValidMoves(Blackhole blackhole) {
+		for (int i = 0; i < squares.length; i++) {
+			blackhole.consume(pieces[i].GetValidMoves(board, squares[i]));
+		}
+	}
+
+	@Benchmark
+	public String toStringBoard() {
+		return board.toString();
+	}
+
+	@Benchmark
+	public StringBuilder render() {
+		text.setLength(0);
+		board.render(text);
+		return text;
+	}
+}
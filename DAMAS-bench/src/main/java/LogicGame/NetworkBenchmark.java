@@ -0,0 +1,56 @@
+package LogicGame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the Network evaluation: the dense layers run on an
+ * accumulator, on the Vector API and on the plain loops, which run when
+ * the JVM does not have the jdk.incubator.vector module.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NetworkBenchmark {
+
+	@Param({ "0", "1", "2" })
+	public int middleGame;
+
+	private Accumulator accumulator;
+	private boolean colour;
+
+	@Setup
+	public void setUp() {
+		Position position = BenchmarkFixtures.board(BenchmarkFixtures.MIDDLE_GAMES[middleGame]).getPosition();
+		accumulator = new Accumulator(Network.random(Network.DEFAULT_HIDDEN, 1), 0);
+		accumulator.refresh(position, 0);
+		colour = position.getSideToMove();
+	}
+
+	@Benchmark
+	@Fork(value = 2, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+	public int evaluateVector() {
+		return accumulator.evaluate(0, colour);
+	}
+
+	@Benchmark
+	public int evaluateScalar() {
+		return accumulator.evaluate(0, colour);
+	}
+}
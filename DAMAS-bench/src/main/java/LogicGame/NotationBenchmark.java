@@ -0,0 +1,75 @@
+package LogicGame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of reading moves and positions from text: the "a3 b4"
+ * notation of the console and game files, PDN moves and FEN snapshots.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NotationBenchmark {
+
+	@Param({ "0", "1", "2" })
+	public int middleGame;
+
+	private Position position;
+	private String move;
+	private String pdnMove;
+	private final Position snapshot = new Position();
+	private final long[] buffer = new long[MoveGenerator.MAX_MOVES];
+	private final int[] path = new int[Move.MAX_PATH];
+
+	@Setup
+	public void setUp() {
+		position = BenchmarkFixtures.board(BenchmarkFixtures.MIDDLE_GAMES[middleGame]).getPosition();
+		// The last legal move is the one found after the longest search
+		int count = MoveGenerator.generate(position, position.getSideToMove(), buffer);
+		long packed = buffer[count - 1];
+		// With its landing squares when another capture shares its ends
+		move = Move.toString(position, packed, buffer);
+		pdnMove = PdnGame.toPdn(position, packed, buffer);
+		// Measuring the parse of a move that is not found would go unnoticed
+		if (parseMove() != packed || parsePdnMove() != packed) {
+			throw new IllegalStateException("Fixture move does not parse back: " + move + ", " + pdnMove);
+		}
+	}
+
+	@Benchmark
+	public long parseMove() {
+		return Move.parse(position, move, buffer, path);
+	}
+
+	@Benchmark
+	public long parsePdnMove() {
+		return PdnGame.parseMove(position, pdnMove, buffer, path);
+	}
+
+	@Benchmark
+	public String toFen() {
+		return position.toFen();
+	}
+
+	@Benchmark
+	public boolean setFen() {
+		return snapshot.setFen(BenchmarkFixtures.MIDDLE_GAMES[middleGame]);
+	}
+}
@@ -0,0 +1,116 @@
+package LogicGame;
+
+/**
+ * First layer of a Network for every ply of a search. Entry ply + 1 is
+ * built from entry ply by adding the weight columns of the pieces a move
+ * puts on the board and removing those of the pieces it takes off, so a
+ * move costs a few columns instead of the whole board, and taking a move
+ * back costs nothing: the search just goes back to the entry of its ply.
+ *
+ * Each entry holds the layer seen by white, then the layer seen by black.
+ * Black sees the board turned half round with the colours swapped, which
+ * maps square s to square 31 - s, as in the Tablebase.
+ *
+ * An accumulator belongs to one search, one thread.
+ *
+ * @version 1.0
+ */
+public class Accumulator {
+
+	private final Network network;
+	private final int hidden;
+	private final int[][] values;
+	private final float[] input;
+	private final float[] hidden1;
+	private final float[] hidden2;
+
+   /**
+    * Creates the accumulators of a search.
+    * @param network  the network evaluating the positions.
+    * @param plies  the deepest ply of the search.
+    */
+	public Accumulator(Network network, int plies) {
+		this.network = network;
+		this.hidden = network.hidden;
+		this.values = new int[plies + 1][2 * hidden];
+		this.input = new float[2 * hidden];
+		this.hidden1 = new float[network.l1];
+		this.hidden2 = new float[network.l2];
+	}
+
+	public Network getNetwork() {
+		return network;
+	}
+
+   /**
+    * Computes the entry of a ply from every piece of a position.
+    * @param position  the position.
+    * @param ply  the ply of the position in the search.
+    */
+	public void refresh(Position position, int ply) {
+		int[] entry = values[ply];
+		for (int i = 0; i < hidden; i++) {
+			entry[i] = network.featureBiases[i];
+			entry[hidden + i] = network.featureBiases[i];
+		}
+		int pieces = position.getOccupied();
+		while (pieces != 0) {
+			int sq = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			add(entry, Zobrist.kind(position.isWhite(sq), position.isKing(sq)), sq);
+		}
+	}
+
+   /**
+    * Computes the entry of ply + 1 from the entry of ply and a move. It
+    * must be called before the move is played on the position.
+    * @param position  the position of the ply, before the move.
+    * @param move  a packed move generated for this position.
+    * @param ply  the ply of the position in the search.
+    */
+	public void update(Position position, long move, int ply) {
+		int[] entry = values[ply + 1];
+		System.arraycopy(values[ply], 0, entry, 0, entry.length);
+		int from = Move.from(move);
+		boolean colour = position.isWhite(from);
+		boolean king = position.isKing(from);
+		subtract(entry, Zobrist.kind(colour, king), from);
+		add(entry, Zobrist.kind(colour, king || Move.isPromotion(move)), Move.to(move));
+		for (int captured = Move.captured(move); captured != 0; captured &= captured - 1) {
+			int sq = Integer.numberOfTrailingZeros(captured);
+			subtract(entry, Zobrist.kind(!colour, position.isKing(sq)), sq);
+		}
+	}
+
+   /**
+    * Evaluates the position of a ply.
+    * @param ply  the ply of the position in the search.
+    * @param colour  the player to move.
+    * @return int  the score for the player to move.
+    */
+	public int evaluate(int ply, boolean colour) {
+		int us = colour == Piece.WHITE ? 0 : hidden;
+		return network.forward(values[ply], us, hidden - us, input, hidden1, hidden2);
+	}
+
+	// Adds the columns of a piece to the layers of both players
+	private void add(int[] entry, int kind, int sq) {
+		short[] weights = network.featureWeights;
+		int white = (kind * Position.SQUARES + sq) * hidden;
+		int black = ((kind ^ 2) * Position.SQUARES + Position.SQUARES - 1 - sq) * hidden;
+		for (int i = 0; i < hidden; i++) {
+			entry[i] += weights[white + i];
+			entry[hidden + i] += weights[black + i];
+		}
+	}
+
+	private void subtract(int[] entry, int kind, int sq) {
+		short[] weights = network.featureWeights;
+		int white = (kind * Position.SQUARES + sq) * hidden;
+		int black = ((kind ^ 2) * Position.SQUARES + Position.SQUARES - 1 - sq) * hidden;
+		for (int i = 0; i < hidden; i++) {
+			entry[i] -= weights[white + i];
+			entry[hidden + i] -= weights[black + i];
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package LogicGame;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Headless batch mode: replays every game file of a directory, checks each
+ * move against the rules and writes a summary. The files use the "a3 b4"
+ * one move per line format of CheckersIO and are validated in parallel, one
+ * game per task, each thread replaying on its own Position.
+ *
+ * The summary is a CSV file with one line per game (file, legal plies,
+ * first illegal ply or -1, winner) followed by the totals and the games
+ * per second. The file names are quoted, as they may hold commas.
+ *
+ * Run it as a program: java LogicGame.BatchValidator [-threads=N] directory summary
+ *
+ * @version 1.0
+ */
+public class BatchValidator {
+
+	public final static String WHITE = "WHITE";
+	public final static String BLACK = "BLACK";
+	public final static String NONE = "NONE";
+
+	private final static Position INITIAL = new ChessBoard().getPosition();
+
+	private final static ThreadLocal<Position> POSITION = ThreadLocal.withInitial(Position::new);
+	private final static ThreadLocal<long[]> MOVES =
+			ThreadLocal.withInitial(() -> new long[MoveGenerator.MAX_MOVES]);
+	private final static ThreadLocal<int[]> PATH = ThreadLocal.withInitial(() -> new int[Move.MAX_PATH]);
+
+   /**
+    * Result of the replay of one game.
+    */
+	public static class Result {
+		public final Path file;
+		public final int plies;
+		public final int firstIllegalPly;
+		// Position state at the end of the game, IN_PLAY for an illegal one
+		public final int state;
+
+		Result(Path file, int plies, int firstIllegalPly, int state) {
+			this.file = file;
+			this.plies = plies;
+			this.firstIllegalPly = firstIllegalPly;
+			this.state = state;
+		}
+
+		public boolean isLegal() {
+			return firstIllegalPly < 0;
+		}
+
+	   /**
+	    * Returns the winner of the game.
+	    * @return String  WHITE, BLACK, or NONE for a draw or a game
+	    *                 that is not over or not legal.
+	    */
+		public String getWinner() {
+			switch (state) {
+			case Position.WHITE_WINS:
+				return WHITE;
+			case Position.BLACK_WINS:
+				return BLACK;
+			default:
+				return NONE;
+			}
+		}
+	}
+
+	private BatchValidator() {
+	}
+
+   /**
+    * Replays one game file.
+    * @param file  the game file.
+    * @return Result  the number of legal plies, the first illegal ply
+    *                 (counted from 1, -1 when all are legal) and the winner.
+    * @exception IOException if the file cannot be read.
+    */
+	public static Result validate(Path file) throws IOException {
+		Position position = POSITION.get();
+		long[] moves = MOVES.get();
+		int[] path = PATH.get();
+		position.copyFrom(INITIAL);
+		int plies = 0;
+		int illegal = -1;
+
+		try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().isEmpty() || CheckersIO.getSnapshot(line) != null) {
+					continue;
+				}
+				// Nothing can be played once the game is over
+				long move = position.getState() == Position.IN_PLAY
+						? Move.parse(position, line, moves, path) : Move.NONE;
+				if (move == Move.NONE) {
+					illegal = plies + 1;
+					break;
+				}
+				position.play(move);
+				plies++;
+			}
+		}
+
+		return new Result(file, plies, illegal, illegal < 0 ? position.getState() : Position.IN_PLAY);
+	}
+
+   /**
+    * Replays every game file under a directory in parallel.
+    * @param directory  the directory holding the game files.
+    * @param threads  the number of threads to use.
+    * @return Result[]  the result of each game, sorted by file name.
+    * @exception IOException if a file cannot be read.
+    */
+	public static Result[] validateAll(Path directory, int threads) throws IOException {
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(directory)) {
+			files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+		Result[] results = new Result[files.size()];
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+		try {
+			pool.submit(() -> IntStream.range(0, results.length).parallel().forEach(i -> {
+				try {
+					results[i] = validate(files.get(i));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			})).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return results;
+	}
+
+   /**
+    * Validates a directory of games and writes the summary.
+    * @param args  optional -threads=N, the directory and the summary file.
+    */
+	public static void main(String args[]) throws IOException {
+		int first = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length > 0 && args[0].startsWith("-threads=")) {
+			threads = Integer.parseInt(args[0].substring(9));
+			first = 1;
+		}
+		if (args.length - first < 2) {
+			System.err.println("Usage: java LogicGame.BatchValidator [-threads=N] directory summary");
+			return;
+		}
+
+		long start = System.nanoTime();
+		Result[] results = validateAll(Paths.get(args[first]), threads);
+		double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+
+		int legal = 0;
+		int whiteWins = 0;
+		int blackWins = 0;
+		try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[first + 1]), StandardCharsets.UTF_8)) {
+			out.write("file,plies,first_illegal_ply,winner");
+			out.newLine();
+			for (Result result : results) {
+				out.write(quote(result.file.toString()) + "," + result.plies + "," + result.firstIllegalPly
+						+ "," + result.getWinner());
+				out.newLine();
+				if (result.isLegal()) {
+					legal++;
+				}
+				if (result.state == Position.WHITE_WINS) {
+					whiteWins++;
+				} else if (result.state == Position.BLACK_WINS) {
+					blackWins++;
+				}
+			}
+			String totals = String.format("# games %d, legal %d, illegal %d, white wins %d, black wins %d, %.1f games/s",
+					results.length, legal, results.length - legal, whiteWins, blackWins, results.length / seconds);
+			out.write(totals);
+			out.newLine();
+			System.out.println(totals);
+		}
+	}
+
+	// A CSV field in quotes, its quotes doubled
+	private static String quote(String field) {
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+}
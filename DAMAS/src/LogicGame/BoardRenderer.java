@@ -0,0 +1,206 @@
+package LogicGame;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+/**
+ * Draws a ChessBoard as text. The frame of the board never changes, so its
+ * lines are built once; only the cells and the killed pieces are written
+ * for each drawing, into a buffer that is reused.
+ *
+ * render writes the whole board, as ChessBoard.toString shows it. redraw
+ * is meant for a terminal that keeps the board on screen: the first call
+ * draws it at a fixed place with ANSI cursor positioning and the next ones
+ * only rewrite the cells that changed since the previous call.
+ *
+ * @version 1.0
+ */
+public class BoardRenderer {
+
+	// Lines of the drawing: header, top, 8 rows with their separators, header
+	public final static int LINES = 2 * ChessBoard.ROWS + 3;
+
+	private final static String NL = System.getProperty("line.separator");
+	private final static String ESC = "\u001B[";
+	private final static char VERTICAL = '│';
+	private final static char WHITE_CELL = '░';
+	private final static char BLACK_CELL = '█';
+	// Offset of the first cell of a row and width of a cell with its border
+	private final static int CELL_OFFSET = 3;
+	private final static int CELL_WIDTH = 3;
+	private final static int KILLED_OFFSET = CELL_OFFSET + CELL_WIDTH * ChessBoard.COLS;
+
+	private final static String HEADER = "   a  b  c  d  e  f  g  h   Killed pieces";
+	private final static String LINE_TOP = frameLine("  ", '┌', '┬', '┐');
+	private final static String LINE_MIDDLE = frameLine("  ", '├', '┼', '┤');
+	private final static String LINE_BOTTOM = frameLine("  ", '└', '┴', '┘');
+
+	private final StringBuilder buffer = new StringBuilder(4096);
+	private final int top;
+	private final int left;
+	private boolean drawn;
+	private int lastWhite;
+	private int lastBlack;
+	private int lastKings;
+	private int lastKilledWhite;
+	private int lastKilledBlack;
+
+   /**
+    * Creates a renderer whose redraw places the board at the top left
+    * corner of the terminal.
+    */
+	public BoardRenderer() {
+		this(1, 1);
+	}
+
+   /**
+    * Creates a renderer whose redraw places the board at a given place.
+    * @param top  the terminal row of the first line, from 1.
+    * @param left  the terminal column of the first character, from 1.
+    */
+	public BoardRenderer(int top, int left) {
+		this.top = top;
+		this.left = left;
+	}
+
+   /**
+    * Writes the whole board.
+    * @param board  the board to draw.
+    * @param out  where to write it.
+    */
+	public void render(ChessBoard board, Appendable out) {
+		buffer.setLength(0);
+		buffer.append(HEADER).append(NL).append(LINE_TOP).append(NL);
+		for (int row = ChessBoard.ROWS - 1; row >= 0; row--) {
+			appendRow(board, row);
+			buffer.append(NL);
+			buffer.append(row > 0 ? LINE_MIDDLE : LINE_BOTTOM).append(NL);
+		}
+		buffer.append(HEADER).append(NL);
+		flush(out);
+	}
+
+   /**
+    * Brings the board on the terminal up to date. The first call, and the
+    * first one after invalidate, draws all of it; later calls only write
+    * the cells and killed pieces that changed. The cursor is left on the
+    * line below the board.
+    * @param board  the board to draw.
+    * @param out  the terminal.
+    */
+	public void redraw(ChessBoard board, Appendable out) {
+		Position position = board.getPosition();
+		buffer.setLength(0);
+		if (!drawn) {
+			for (int line = 0; line < LINES; line++) {
+				moveCursor(line, 0);
+				appendLine(board, line);
+				buffer.append(ESC).append('K');
+			}
+		} else {
+			int changed = (position.getWhite() ^ lastWhite) | (position.getBlack() ^ lastBlack)
+					| (position.getKings() ^ lastKings);
+			for (; changed != 0; changed &= changed - 1) {
+				int square = Integer.numberOfTrailingZeros(changed);
+				moveCursor(rowLine(Position.row(square)), CELL_OFFSET + CELL_WIDTH * Position.col(square));
+				appendCell(board, Position.col(square), Position.row(square));
+			}
+			if (board.getKilledBlack().size() != lastKilledBlack) {
+				moveCursor(rowLine(ChessBoard.ROWS - 1), KILLED_OFFSET);
+				appendKilled(board.getKilledBlack());
+				buffer.append(ESC).append('K');
+			}
+			if (board.getKilledWhite().size() != lastKilledWhite) {
+				moveCursor(rowLine(0), KILLED_OFFSET);
+				appendKilled(board.getKilledWhite());
+				buffer.append(ESC).append('K');
+			}
+		}
+		moveCursor(LINES, 0);
+		drawn = true;
+		lastWhite = position.getWhite();
+		lastBlack = position.getBlack();
+		lastKings = position.getKings();
+		lastKilledWhite = board.getKilledWhite().size();
+		lastKilledBlack = board.getKilledBlack().size();
+		flush(out);
+	}
+
+   /**
+    * Makes the next redraw draw the whole board, when the screen has been
+    * cleared or scrolled.
+    */
+	public void invalidate() {
+		drawn = false;
+	}
+
+	private void appendLine(ChessBoard board, int line) {
+		if (line == 0 || line == LINES - 1) {
+			buffer.append(HEADER);
+		} else if (line == 1) {
+			buffer.append(LINE_TOP);
+		} else if (line == LINES - 2) {
+			buffer.append(LINE_BOTTOM);
+		} else if ((line & 1) == 1) {
+			buffer.append(LINE_MIDDLE);
+		} else {
+			appendRow(board, ChessBoard.ROWS - 1 - (line - 2) / 2);
+		}
+	}
+
+	private void appendRow(ChessBoard board, int row) {
+		buffer.append((char) ('1' + row)).append(' ').append(VERTICAL);
+		for (int col = 0; col < ChessBoard.COLS; col++) {
+			appendCell(board, col, row);
+			buffer.append(VERTICAL);
+		}
+		if (row == ChessBoard.ROWS - 1) {
+			appendKilled(board.getKilledBlack());
+		} else if (row == 0) {
+			appendKilled(board.getKilledWhite());
+		}
+	}
+
+	private void appendCell(ChessBoard board, int col, int row) {
+		int square = Position.square(col, row);
+		if (square == Position.NO_SQUARE) {
+			buffer.append(WHITE_CELL).append(' ');
+			return;
+		}
+		Piece piece = board.pieceAt(square);
+		buffer.append(BLACK_CELL).append(piece == Piece.EMPTY ? " " : piece.toString());
+	}
+
+	private void appendKilled(ArrayList<Piece> killed) {
+		buffer.append('[');
+		for (Piece piece : killed) {
+			buffer.append(piece.toString()).append(',');
+		}
+		buffer.append(']');
+	}
+
+	private static int rowLine(int row) {
+		return 2 + 2 * (ChessBoard.ROWS - 1 - row);
+	}
+
+	private void moveCursor(int line, int offset) {
+		buffer.append(ESC).append(top + line).append(';').append(left + offset).append('H');
+	}
+
+	private void flush(Appendable out) {
+		try {
+			out.append(buffer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String frameLine(String indent, char first, char middle, char last) {
+		StringBuilder sb = new StringBuilder(indent).append(first);
+		for (int col = 0; col < ChessBoard.COLS; col++) {
+			sb.append('─').append('─').append(col < ChessBoard.COLS - 1 ? middle : last);
+		}
+		return sb.toString();
+	}
+}
@@ -1,6 +1,8 @@
 package LogicGame;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.regex.*;
@@ -16,6 +18,12 @@ import java.util.regex.*;
 public class Checkers {
 
 	private final String NL = System.getProperty("line.separator");
+	
+	// "a3 b4", or a capture with its landing squares like "a3xc5xe7"
+	private final static Pattern MOVE_PATTERN = Pattern.compile(
+			"[a-h][1-8](?:(?: +|x|-)[a-h][1-8])+", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private final static Pattern CELL_PATTERN = Pattern.compile(
+			"([a-h][1-8])", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
 
 	private BufferedReader in = null;
 	private ChessBoard chessBoard = null;
@@ -23,6 +31,13 @@ public class Checkers {
 	private boolean player;
 	private boolean DEVELOPMENT_MODE = true;
 	private CheckersIO io = null;
+	private Engine engine = null;
+	private boolean computerOpponent = false;
+	private final boolean COMPUTER_COLOUR = Piece.BLACK;
+	private final long COMPUTER_TIME_MILLIS = 2000;
+	private final String BOOK_FILE = "book.bin";
+	private OpeningBook book = null;
+	private final String NETWORK_FILE = "network.bin";
 
    /**
     * Default constructor. It initializes BufferedReader.
@@ -56,6 +71,9 @@ public class Checkers {
 		if (this.DEVELOPMENT_MODE)
 			sb.append("6. Debug Cell").append(NL);
 		
+		sb.append("7. Play against computer").append(NL);
+		sb.append("8. Show metrics").append(NL);
+		
 		sb.append("------------------------").append(NL);
 		sb.append("Select option : ");
 		
@@ -71,8 +89,10 @@ public class Checkers {
 
 		int option;
 
-		if (this.startedGame)
-			System.out.println(chessBoard.toString());
+		if (this.startedGame) {
+			chessBoard.render(System.out);
+			System.out.println();
+		}
 		
 		System.out.print(getMenu());
 
@@ -91,7 +111,8 @@ public class Checkers {
 	private String readMove() {
 		String move;
 
-		System.out.println("Example: a3 b4");
+		System.out.println("Example: a3 b4, or a3xc5xe7 to choose a capture");
+		printBookMoves();
 		System.out.print("Move : ");
 
 		try {
@@ -106,7 +127,8 @@ public class Checkers {
 	    * Private method used to manage input issues: set the input file
 	    * which contains moves, read the file, put all moves into an 
 	    * ArrayList<String> and then for each move executes movePiece(...)
-	    * method.
+	    * method. A file that starts with a position snapshot is restored
+	    * from it directly.
 	    */
 	private void manageInput() {
 			
@@ -118,10 +140,29 @@ public class Checkers {
 			io.setInputFile(inputFile);
 			ArrayList<String> movesAux=io.read();
 
-			for (int i=0; i<movesAux.size(); i++) {		
-				movePiece(movesAux.get(i));
+			// A snapshot of the final position saves replaying the moves
+			String fen = movesAux.isEmpty() ? null : CheckersIO.getSnapshot(movesAux.get(0));
+			if (fen != null) {
+				chessBoard.setFen(fen);
+				this.player = chessBoard.getPlayerToMove();
+				for (int i=1; i<movesAux.size(); i++) {
+					if (!movesAux.get(i).trim().isEmpty())
+						chessBoard.getMoves().add(movesAux.get(i));
+				}
+				if (chessBoard.isThereWinner()) {
+					this.startedGame = false;
+					System.out.println(">> Game ended, winner " + (chessBoard.getWinnerColour() ? "WHITE" : "BLACK"));
+				} else if (chessBoard.isDraw()) {
+					this.startedGame = false;
+					System.out.println(">> Game ended in a draw");
+				}
+			} else {
+				for (int i=0; i<movesAux.size() && this.startedGame; i++) {		
+					movePiece(movesAux.get(i), false);
+				}
 			}
 			chessBoard.setPendingMovesToWrite(false);
+			System.out.println(">> " + chessBoard.getMoves().size() + " moves loaded");
 				
 		} catch (Exception e) {
 			inputFile = "";
@@ -131,7 +172,8 @@ public class Checkers {
    /**
     * Private method used to manage output issues: set the output file,
     * get from ChessBoard the ArrayList<String> which contains 
-    * all the moves of the game, and write them into the output file.
+    * all the moves of the game, and write them into the output file,
+    * optionally after a snapshot of the current position.
     */
 	private void manageOutput() {
 			
@@ -140,8 +182,15 @@ public class Checkers {
 
 		try {
 			outputFile = in.readLine();
+			System.out.print("Save position snapshot (y/n) : ");
+			boolean snapshot = in.readLine().trim().toLowerCase().startsWith("y");
 			io.setOutputFile(outputFile);
-			io.write(chessBoard.getMoves());
+			ArrayList<String> lines = new ArrayList<String>();
+			if (snapshot) {
+				lines.add(CheckersIO.snapshotLine(chessBoard.toFen()));
+			}
+			lines.addAll(chessBoard.getMoves());
+			io.write(lines);
 			chessBoard.setPendingMovesToWrite(false);
 		} catch (Exception e) {
 			outputFile = "";
@@ -165,35 +214,118 @@ public class Checkers {
     *                                 by the methods used here.
     */
 	private void movePiece(String move) throws CheckersException {
+		movePiece(move, true);
+	}
 
-		String initialPosition = "";
-		String finalPosition = "";
+   /**
+    * Method used to play a move, typed or read from a file
+    * @param verbose  false to only report the end of the game, used when
+    *                 a whole file of moves is replayed.
+    * @exception CheckersException throws all ChessPlayerException generated
+    *                                 by the methods used here.
+    */
+	private void movePiece(String move, boolean verbose) throws CheckersException {
 
 		// Check if the move matches the regular expression for a move
 		move = move.toLowerCase();
-		String re = "([a-h][1-8]) ([a-h][1-8])";
-		Pattern pat = Pattern.compile(re, Pattern.CASE_INSENSITIVE
-				| Pattern.DOTALL);
-		Matcher m = pat.matcher(move);
-		if (m.find()) {
-			initialPosition = m.group(1);
-			finalPosition = m.group(2);
-		}
-		if (initialPosition.isEmpty() || finalPosition.isEmpty()) {
+		Matcher m = MOVE_PATTERN.matcher(move);
+		if (!m.find()) {
 			throw new CheckersException(
 					CheckersException.INCORRECT_MOVE_VALUE);
 		}
 
 		// Ask ChessBoard to move the piece
-		chessBoard.movePiece(initialPosition, finalPosition, this.player);
-		if (!chessBoard.isThereWinner()) {	
+		chessBoard.movePiece(m.group(), this.player);
+		if (chessBoard.isThereWinner()) {
+			this.startedGame = false;
+			System.out.println(">> Game ended, winner " + (chessBoard.getWinnerColour() ? "WHITE" : "BLACK"));
+		}
+		else if (chessBoard.isDraw()) {
+			this.startedGame = false;
+			System.out.println(">> Game ended in a draw");
+		}
+		else {	
 			this.player = this.player ? Piece.BLACK : Piece.WHITE;
-			System.out.println(">> Done");
+			if (verbose)
+				System.out.println(">> Done");
 		}
-		else {
+	}
+	
+   /**
+    * Private method used to open the opening book BOOK_FILE, if there is one.
+    * @return OpeningBook  the book, or null when it is not available.
+    */
+	private OpeningBook getBook() {
+		if (book == null && new File(BOOK_FILE).isFile()) {
+			try {
+				book = OpeningBook.open(BOOK_FILE);
+			} catch (IOException e) {
+				System.err.println(">> The opening book can not be read - " + e.getMessage());
+			}
+		}
+		return book;
+	}
+	
+   /**
+    * Private method used to load the evaluation network NETWORK_FILE, if
+    * there is one.
+    * @return Network  the network, or null to use the Evaluation tables.
+    */
+	private Network getNetwork() {
+		if (new File(NETWORK_FILE).isFile()) {
+			try {
+				return Network.load(NETWORK_FILE);
+			} catch (IOException e) {
+				System.err.println(">> The network can not be read - " + e.getMessage());
+			}
+		}
+		return null;
+	}
+	
+   /**
+    * Private method used to show the book moves of the current position.
+    */
+	private void printBookMoves() {
+		if (getBook() == null) {
+			return;
+		}
+		long[] moves = new long[MoveGenerator.MAX_MOVES];
+		int[] games = new int[MoveGenerator.MAX_MOVES];
+		// Probed on a copy: the side to move of the game is not changed
+		Position position = new Position(chessBoard.getPosition());
+		position.setSideToMove(this.player);
+		int count = book.getMoves(position, moves, games);
+		if (count > 0) {
+			StringBuilder sb = new StringBuilder("Book:");
+			for (int i = 0; i < count; i++) {
+				sb.append(" ").append(Move.toString(moves[i])).append(" (").append(games[i]).append(")");
+			}
+			System.out.println(sb.toString());
+		}
+	}
+	
+   /**
+    * Private method used to let the computer play its move. The engine
+    * searches the current position within COMPUTER_TIME_MILLIS and its
+    * move is played like any other one.
+    * @exception CheckersException throws all ChessPlayerException generated
+    *                                 by the methods used here.
+    */
+	private void computerMove() throws CheckersException {
+		if (engine == null) {
+			engine = new Engine();
+			engine.setOpeningBook(getBook());
+			engine.setNetwork(getNetwork());
+		}
+		long move = engine.search(chessBoard.getPosition(), COMPUTER_TIME_MILLIS);
+		if (move == Move.NONE) {
 			this.startedGame = false;
-			System.out.println(">> Game ended, winner " + (chessBoard.getWinnerColour() ? "WHITE" : "BLACK"));
+			System.out.println(">> Game ended, winner " + (this.player ? "BLACK" : "WHITE"));
+			return;
 		}
+		String text = Move.toString(chessBoard.getPosition(), move, new long[MoveGenerator.MAX_MOVES]);
+		System.out.println(">> Computer move: " + text);
+		movePiece(text);
 	}
 	
    /**
@@ -226,10 +358,7 @@ public class Checkers {
 
 		// Check if the move matches the regular expression for a move
 		cell = cell.toLowerCase();
-		String re = "([a-h][1-8])";
-		Pattern pat = Pattern.compile(re, Pattern.CASE_INSENSITIVE
-				| Pattern.DOTALL);
-		Matcher m = pat.matcher(cell);
+		Matcher m = CELL_PATTERN.matcher(cell);
 		if (m.find()) {
 			position = m.group(1);
 		}
@@ -267,6 +396,7 @@ public class Checkers {
 				case 1:
 					initializeBoard();
 					this.player = Piece.WHITE;
+					this.computerOpponent = false;
 					break;
 				case 2:
 					if (!this.startedGame) {
@@ -275,10 +405,15 @@ public class Checkers {
 					}
 					move = this.readMove();
 					movePiece(move);
+					if (this.computerOpponent && this.startedGame
+							&& this.player == COMPUTER_COLOUR) {
+						computerMove();
+					}
 					break;
 				case 3: // Load
 					initializeBoard();
 					this.player = Piece.WHITE;
+					this.computerOpponent = false;
 					manageInput();
 					if (this.player) {
 						System.out.println(">> White turn");
@@ -303,6 +438,15 @@ public class Checkers {
 					cell = readCell();
 					debugCell(cell);
 					break;
+				case 7: // Play against computer
+					initializeBoard();
+					this.player = Piece.WHITE;
+					this.computerOpponent = true;
+					System.out.println(">> You play WHITE");
+					break;
+				case 8: // Metrics
+					System.out.print(Metrics.snapshot());
+					break;
 				default:
 					throw new CheckersException(
 							CheckersException.INCORRECT_OPTION);
@@ -396,8 +540,6 @@ public class Checkers {
 		
 		//Test 7:
 		board.ResetBoard();
-		Piece.TOTAL_BLACK_PIECES = 0;
-		Piece.TOTAL_WHITE_PIECES = 0;
 		board.setPiece(new Pawn(Piece.WHITE), "e3");
 		board.setPiece(new Pawn(Piece.WHITE), "g3");
 		board.setPiece(new Pawn(Piece.BLACK), "h6");
@@ -405,7 +547,10 @@ public class Checkers {
 			board.movePiece("e3","f4", Piece.WHITE);
 			board.movePiece("h6","g5", Piece.BLACK);
 			board.movePiece("f4","h6", Piece.WHITE);
-			System.out.println("Test 7: ✅");
+			if (board.isThereWinner() && board.getWinnerColour() == Piece.WHITE)
+				System.out.println("Test 7: ✅");
+			else
+				System.err.println("Error Test 7: las negras no tienen piezas y no hay ganador");
 		} catch (Exception e) {
 			System.err.println("Error Test 7: no puede comer f4 h6");
 		}
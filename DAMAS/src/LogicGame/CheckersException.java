@@ -15,6 +15,10 @@ public class CheckersException extends Exception{
 	public final static String NO_PIECE_ON_CELL = ">> There is not piece on initial position - ";
 	public final static String PLAYER_MUST_MOVE_HIS_PIECES = ">> Player only can move his pieces - Its turn for ";
 	public final static String ILEGAL_MOVE = ">> The move is ilegal";
+	public final static String CAPTURE_IS_MANDATORY = ">> The move is ilegal, capturing is mandatory";
+	public final static String AMBIGUOUS_CAPTURE = ">> More than one capture goes there, give its landing squares, like a3xc5xe7 - ";
+	public final static String ILLEGAL_GAME_MOVE = ">> The game holds a move that is not legal - ";
+	public final static String INCORRECT_SNAPSHOT = ">> The position snapshot has an incorrect format - ";
 	public final static String GAME_STILL_IN_PLAY = ">> The game is still in play, there's no winner yet";
 	
 	/**
@@ -8,6 +8,9 @@ public class CheckersIO {
 	private BufferedWriter out;
 	private final String NL = System.getProperty("line.separator");
 	
+	private final static String SNAPSHOT_START = "[FEN \"";
+	private final static String SNAPSHOT_END = "\"]";
+	
 	
 	public void setInputFile(String inputFile) throws FileNotFoundException {
 		in = new BufferedReader(new FileReader(inputFile));
@@ -19,6 +22,9 @@ public class CheckersIO {
 	}
 	
 	public ArrayList<String> read() throws IOException{
+		long start = System.nanoTime();
+		Metrics.GameFileEvent event = new Metrics.GameFileEvent();
+		event.begin();
 		ArrayList<String> lines = new ArrayList<String>();
 		String strCurrentLine;
 		
@@ -28,14 +34,47 @@ public class CheckersIO {
 		
 		in.close();
 		
+		Metrics.recordFile(System.nanoTime() - start, lines.size(), false);
+		event.lines = lines.size();
+		event.commit();
 		return lines;
 	}
 	
 	public void write(ArrayList<String> lines) throws IOException {	
+		long start = System.nanoTime();
+		Metrics.GameFileEvent event = new Metrics.GameFileEvent();
+		event.begin();
 		for (String move : lines) {
 			out.write(move + NL);
 		}
 		
 		out.close();
+		Metrics.recordFile(System.nanoTime() - start, lines.size(), true);
+		event.written = true;
+		event.lines = lines.size();
+		event.commit();
+	}
+	
+	/**
+	 * Returns the line that stores a position snapshot in a game file,
+	 * like [FEN "W:W21,22:B1,2"].
+	 * @param fen  the snapshot, as written by ChessBoard.toFen.
+	 * @return String  the line.
+	 */
+	public static String snapshotLine(String fen) {
+		return SNAPSHOT_START + fen + SNAPSHOT_END;
+	}
+	
+	/**
+	 * Returns the snapshot stored in a line of a game file.
+	 * @param line  a line of a game file.
+	 * @return String  the snapshot, or null if the line holds a move.
+	 */
+	public static String getSnapshot(String line) {
+		line = line.trim();
+		if (line.startsWith(SNAPSHOT_START) && line.endsWith(SNAPSHOT_END)) {
+			return line.substring(SNAPSHOT_START.length(), line.length() - SNAPSHOT_END.length());
+		}
+		return null;
 	}
 }
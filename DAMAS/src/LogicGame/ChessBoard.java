@@ -6,107 +6,170 @@ public class ChessBoard {
 
 	public final static int COLS = 8;
 	public final static int ROWS = 8;
+	public final static int PIECES_PER_PLAYER = 12;
 	private ArrayList<Piece> killedWhite; 
 	private ArrayList<Piece> killedBlack; 
 	private ArrayList<String> savedMoves;
 	private boolean pendingMovesToWrite;
 	
+	// Shared pieces used to present the bitboard position as Cell objects
+	private final static Piece WHITE_PAWN = new Pawn(Piece.WHITE);
+	private final static Piece BLACK_PAWN = new Pawn(Piece.BLACK);
+	private final static Piece WHITE_QUEEN = new Queen(Piece.WHITE);
+	private final static Piece BLACK_QUEEN = new Queen(Piece.BLACK);
+	
 	ChessBoard(){
 		killedWhite = new ArrayList<Piece>();
 		killedBlack = new ArrayList<Piece>();
 		savedMoves = new ArrayList<String>();
 		pendingMovesToWrite = false;
-		board = new Cell[ROWS][COLS];
-		initializeBoard();
+		position = new Position();
 		initializePieces();
 	}
 	
 	boolean movePiece( String initialPosition, String finalPosition, boolean player) throws CheckersException {
+		return movePiece(initialPosition + " " + finalPosition, player);
+	}
+	
+	/**
+    * Plays a move written in "a3 b4" notation, or with its landing
+    * squares, like "a3xc5xe7", when two captures share their ends.
+    * @param move  the move.
+    * @param player  the player making the move.
+    * @return boolean  true once the move is played.
+    * @exception CheckersException if the move is not legal.
+    */
+	boolean movePiece(String move, boolean player) throws CheckersException {
+		long allocated = Metrics.allocatedBytes();
+		long start = System.nanoTime();
+		Metrics.MoveEvent event = new Metrics.MoveEvent();
+		event.begin();
+		legalCount = 0;
+		long packed;
+		try {
+			packed = playMove(move, player);
+		} catch (CheckersException ce) {
+			// Rejected moves are timed too: checking them is part of the latency
+			Metrics.recordIllegalMove(System.nanoTime() - start);
+			if (event.shouldCommit()) {
+				event.move = move;
+				event.legal = legalCount;
+				event.rejected = true;
+				event.commit();
+			}
+			throw ce;
+		}
+		long nanos = System.nanoTime() - start;
+		if (allocated >= 0) {
+			allocated = Metrics.allocatedBytes() - allocated;
+		}
+		Metrics.recordMove(nanos, allocated);
+		if (event.shouldCommit()) {
+			event.move = move;
+			event.captured = Integer.bitCount(Move.captured(packed));
+			event.legal = legalCount;
+			event.allocated = allocated;
+			event.commit();
+		}
+		return true;
+	}
+	
+	// Plays a move after checking it is legal, and returns it packed
+	private long playMove( String text, boolean player) throws CheckersException {
 		
-		Cell initialCell = getCell(initialPosition);
+		int length = Move.squares(text, path);
+		if(length < 2)
+			throw new CheckersException(
+					CheckersException.INCORRECT_MOVE_VALUE);
+		int from = path[0];
+		int to = path[length - 1];
 		
-		if(!initialCell.hasPiece()) 
+		if(from == Position.NO_SQUARE || position.isEmpty(from)) 
 			throw new CheckersException(
 					CheckersException.NO_PIECE_ON_CELL);
 		
-		Piece initialPiece = initialCell.getPiece();
-		
-		if(player != initialPiece.GetColour()) 
+		if(player != position.isWhite(from)) 
 			throw new CheckersException(
 					CheckersException.PLAYER_MUST_MOVE_HIS_PIECES, player ? "WHITE" : "BLACK");
 		
-		ArrayList<String> moves = initialCell.getPiece().GetValidMoves(this, initialPosition);
-		boolean moveIsValid = false;
-		for(String move: moves) {
-			if(move.compareTo(finalPosition) == 0) {
-				moveIsValid = true;
-			}
-		}
+		boolean previous = position.getSideToMove();
+		position.setSideToMove(player);
+		MoveCache.Entry legal = getLegalMoves();
+		legalCount = legal.size();
+		long move = legal.find(path, length);
 		
-		if(!moveIsValid) {
+		if(move == Move.NONE) {
+			// A rejected move leaves the board as it was, its player to move too
+			position.setSideToMove(previous);
+			if(to != Position.NO_SQUARE && legal.count(from, to) > 1)
+				throw new CheckersException(
+						CheckersException.AMBIGUOUS_CAPTURE, text.trim());
+			if(legal.isCaptureForced())
+				throw new CheckersException(
+						CheckersException.CAPTURE_IS_MANDATORY);
 			throw new CheckersException(
 					CheckersException.INCORRECT_MOVE_VALUE);
 		}
 		
-		Piece aux = initialCell.getPiece();
-		int row = getRow(finalPosition);
-		if(row == 0 || row == ROWS - 1) {
-			aux = new Queen(aux.GetColour());
-		}
-		
-		setPiece(aux, finalPosition);
-		initialCell.empty();
-		
-		if(isThereAJump(initialPosition, finalPosition)) {
-			Cell cell = getAkillerCell(initialPosition, finalPosition);
-			Piece piece = cell.getPiece();
+		// Saved so that loading the game plays this very capture again
+		String saved = Move.toString(position, move, moveBuffer());
+		int captured = Move.captured(move);
+		while (captured != 0) {
+			Piece piece = pieceAt(Integer.numberOfTrailingZeros(captured));
 			if (piece.colour == Piece.WHITE) {
 				killedWhite.add(piece);
 			} else {
 				killedBlack.add(piece);
 			}
-			cell.empty();
+			captured &= captured - 1;
 		}
+		position.play(move);
 		
-		savedMoves.add(initialPosition + " " + finalPosition);
+		savedMoves.add(saved);
 		setPendingMovesToWrite(true);
 		
-		return true;	
-	}
-	
-	private boolean isThereAJump(String initialPosition , String finalPosition) {
-		int col_ini = getCol(initialPosition);
-		int row_ini = getRow(initialPosition);
-		
-		int col_fin = getCol(finalPosition);
-		int row_fin = getRow(finalPosition);
-		
-		return (Math.abs(col_ini - col_fin) + Math.abs(row_ini - row_fin) > 2);
-	}
-	
-	private Cell getAkillerCell(String initialPosition, String finalPosition) {
-		int col_ini = getCol(initialPosition);
-		int row_ini = getRow(initialPosition);
-	
-		int col_fin = getCol(finalPosition);
-		int row_fin = getRow(finalPosition);
-	
-		int col = (col_ini + col_fin) / 2;
-		int row = (row_ini + row_fin) / 2;
-		
-		return board[col][row];
+		return move;	
 	}
 	
+	/**
+    * Returns the colour of the winner: the player to move loses with no
+    * piece or no legal move left.
+    * @return boolean  Piece.WHITE or Piece.BLACK.
+    */
 	public boolean getWinnerColour() {
-		return Piece.TOTAL_BLACK_PIECES == killedBlack.size()
+		return position.getState() == Position.WHITE_WINS
 			? Piece.WHITE
 			: Piece.BLACK;
 	}
 	
+	/**
+    * Tells whether the game is over because the player to move has no
+    * piece left or none of its pieces can move. It only looks at this
+    * board, so any number of boards can be played at once.
+    * @return boolean  true if a player has won.
+    */
 	public boolean isThereWinner() {
-		return Piece.TOTAL_BLACK_PIECES == killedBlack.size();
+		int state = position.getState();
+		return state == Position.WHITE_WINS || state == Position.BLACK_WINS;
 	}
 	
+	/**
+    * Tells whether the game is drawn, after Position.DRAW_QUIET_PLIES
+    * plies without a capture or a man move.
+    * @return boolean  true if the game is drawn.
+    */
+	public boolean isDraw() {
+		return position.getState() == Position.DRAW;
+	}
+	
+	
+	ArrayList<Piece> getKilledWhite() {
+		return killedWhite;
+	}
+	
+	ArrayList<Piece> getKilledBlack() {
+		return killedBlack;
+	}
 	
 	public ArrayList<String> getMoves() {
 		return savedMoves;
@@ -122,28 +185,10 @@ public class ChessBoard {
 	
 	
 	public void ResetBoard() {
-		Piece.TOTAL_BLACK_PIECES = 0;
-		Piece.TOTAL_WHITE_PIECES = 0;
 		this.killedBlack = new ArrayList<Piece>();
 		this.killedWhite = new ArrayList<Piece>();
-		
-		for (int row = ROWS - 1; row >= 0; row--) {
-			for (int col = 0; col < COLS; col++) {
-				board[row][col].SetPiece(Piece.EMPTY);
-			}
-		}
-	}
-	
-	private void initializeBoard() {
-		for(int row = ROWS -1; row >= 0; row--) {
-			for(int col = 0; col < COLS; col++) {
-				if ((row+col)%2==0) {
-					board[row][col] = new Cell(Cell.BLACK, Piece.EMPTY);
-				}else {
-					board[row][col] = new Cell(Cell.WHITE, Piece.EMPTY);
-				}
-			}
-		}
+		position.clear();
+		legalMoves = null;
 	}
 	
 	private void  initializePieces() {
@@ -176,17 +221,142 @@ public class ChessBoard {
 
 	}
 	
+	/**
+    * Places a piece on a dark cell of the ChessBoard. Only the colour and
+    * the kind of the piece are kept by the position.
+    * @param piece  the piece to place, or Piece.EMPTY to empty the cell.
+    * @param position  a position on ChessBoard.
+    */
 	public void setPiece(Piece piece, String position) {
-		//Cell cellAux=this.getCell(position);
-		int col = getCol(position);
-		int row = getRow(position);
-		 board[row][col].SetPiece(piece);
+		int square = Position.square(position);
+		if (square == Position.NO_SQUARE) {
+			throw new IllegalArgumentException(position);
+		}
+		legalMoves = null;
+		if (piece == Piece.EMPTY) {
+			this.position.remove(square);
+			return;
+		}
+		this.position.put(square, piece.GetColour(), piece instanceof Queen);
 	}
 	
+	/**
+    * Returns a view of a cell of the ChessBoard. The Cell is built from
+    * the position, so changing it does not change the board.
+    * @param position  a position on ChessBoard.
+    * @return Cell  the cell at that position.
+    */
 	public Cell getCell(String position) {
 		int col = getCol(position);
 		int row = getRow(position);
-		return board[row][col];
+		return new Cell(((row + col) & 1) == 0 ? Cell.BLACK : Cell.WHITE,
+				pieceAt(Position.square(col, row)));
+	}
+	
+	/**
+    * Returns the moves of the piece on a position, in "a3 b4" notation.
+    * @param position  a position on ChessBoard.
+    * @return ArrayList<String>  the destinations the piece can reach.
+    */
+	ArrayList<String> getValidMoves(String position) {
+		ArrayList<String> moves = new ArrayList<String>();
+		int count = MoveGenerator.generate(this.position, Position.square(position), moveBuffer());
+		Metrics.recordGenerated(count);
+		for (int i = 0; i < count; i++) {
+			moves.add(Position.squareName(Move.to(moveBuffer[i])));
+		}
+		return moves;
+	}
+	
+	/**
+    * Returns a snapshot of the position in the FEN notation of PDN, like
+    * "W:W21,22,K3:B1,2". It holds the player to move and every piece, so
+    * setFen restores the board without replaying the game.
+    * @return String  the snapshot.
+    */
+	public String toFen() {
+		return position.toFen();
+	}
+	
+	/**
+    * Replaces the board with a snapshot written by toFen. The killed
+    * pieces are rebuilt from the material missing from each side and the
+    * saved moves are cleared.
+    * @param fen  the snapshot.
+    * @exception CheckersException if the snapshot is not valid.
+    */
+	public void setFen(String fen) throws CheckersException {
+		if (!position.setFen(fen)) {
+			throw new CheckersException(
+					CheckersException.INCORRECT_SNAPSHOT, fen);
+		}
+		legalMoves = null;
+		killedWhite = new ArrayList<Piece>();
+		killedBlack = new ArrayList<Piece>();
+		for (int i = position.countPieces(Piece.WHITE); i < PIECES_PER_PLAYER; i++) {
+			killedWhite.add(WHITE_PAWN);
+		}
+		for (int i = position.countPieces(Piece.BLACK); i < PIECES_PER_PLAYER; i++) {
+			killedBlack.add(BLACK_PAWN);
+		}
+		savedMoves = new ArrayList<String>();
+	}
+	
+	/**
+    * Returns the static evaluation of the board: material, advancement of
+    * the men, back rank and centre control. It is updated with every move,
+    * not computed when asked.
+    * @return int  the score for white, in hundredths of a man.
+    */
+	public int getScore() {
+		return position.getScore();
+	}
+	
+	/**
+    * Returns the player to move in the position.
+    * @return boolean  Piece.WHITE or Piece.BLACK.
+    */
+	public boolean getPlayerToMove() {
+		return position.getSideToMove();
+	}
+	
+	/**
+    * Returns the Zobrist key of the current position, including the
+    * player to move. It is updated incrementally by every move.
+    * @return long  the 64-bit hash key.
+    */
+	public long getHashKey() {
+		return position.getHash();
+	}
+	
+	/**
+    * Returns the compact position behind this ChessBoard.
+    * @return Position  the bitboard position.
+    */
+	public Position getPosition() {
+		return position;
+	}
+	
+	/**
+    * Returns the legal moves of the position, from the last ones looked
+    * up when the board has not changed since, or else from the shared
+    * MoveCache.
+    */
+	private MoveCache.Entry getLegalMoves() {
+		if (legalMoves == null || !legalMoves.matches(position)) {
+			legalMoves = MoveCache.SHARED.get(position, moveBuffer());
+		}
+		return legalMoves;
+	}
+	
+	Piece pieceAt(int square) {
+		if (square == Position.NO_SQUARE || position.isEmpty(square)) {
+			return Piece.EMPTY;
+		}
+		if (position.isWhite(square)) {
+			return position.isKing(square) ? WHITE_QUEEN : WHITE_PAWN;
+		}
+		return position.isKing(square) ? BLACK_QUEEN : BLACK_PAWN;
 	}
 	
 	/**
@@ -207,84 +377,47 @@ public class ChessBoard {
 		return position.charAt(1) - '1';
 	}
 	
+	/**
+    * Writes the board drawn as text, without building a String.
+    * @param out  where to write it.
+    */
+	public void render(Appendable out) {
+		renderer().render(this, out);
+	}
+	
+	/**
+    * Returns the board drawn as text, with the killed pieces of each
+    * player beside it.
+    * @return String  the drawing of the board.
+    */
 	public String toString() {
-
-		String horizontal = "\u2500";
-		String vertical = "\u2502";
-		String top = "\u252C";
-		String bottom = "\u2534";
-		String left = "\u251C";
-		String right = "\u2524";
-		String center = "\u253C";
-		String top_left = "\u250C";
-		String top_right = "\u2510";
-		String bottom_left = "\u2514";
-		String bottom_right = "\u2518";
-		String NL = System.getProperty("line.separator");
-		String space = " ";
-		String white_cell = "\u2591";
-		String black_cell = "\u2588";	
-		
-		String chessBoard = "";
-		
-		// -----Line Top------------------------------
-		String lineTop = "   a  b  c  d  e  f  g  h   Killed pieces" + NL;
-		lineTop += "  " + top_left;
-		for (int col = 0; col < COLS - 1; col++) {
-			lineTop += horizontal + horizontal + top;
-		}
-		lineTop += horizontal + horizontal + top_right;
-
-		// -----Line Bottom------------------------------
-		String lineBottom = " " + bottom_left;
-		for (int col = 0; col < COLS - 1; col++) {
-			lineBottom += horizontal + horizontal + bottom;
-		}
-		lineBottom += horizontal + horizontal + bottom_right;
-
-		// -----Line Middle--------------------------------
-		String lineMiddle = " " + left;
-		for (int col = 0; col < COLS - 1; col++) {
-			lineMiddle += horizontal + horizontal + center;
+		StringBuilder chessBoard = new StringBuilder(2048);
+		renderer().render(this, chessBoard);
+		return chessBoard.toString();
+	}
+	
+	// The buffer and the renderer are made on first use: the server, the
+	// validator and the tournaments make many boards and never draw them
+	private long[] moveBuffer() {
+		if (moveBuffer == null) {
+			moveBuffer = new long[MoveGenerator.MAX_MOVES];
 		}
-		lineMiddle += horizontal + horizontal + right;
-
-		// ---- Print all the board
-		chessBoard = lineTop + NL;
-		for (int row = ROWS - 1; row >= 0; row--) {
-			String fila = "";
-			for (int col = 0; col < COLS; col++) {
-				fila += board[row][col].toString() + vertical;
-
-			}
-			chessBoard += (row + 1) + space + vertical + fila;
-			if (row + 1 == 8) {
-				chessBoard += "[";
-				for (Piece piece : killedBlack) {
-					chessBoard += piece.toString() + ",";
-				}
-				chessBoard += "]";
-			} else if (row + 1 == 1) {
-				chessBoard += "[";
-				for (Piece piece : killedWhite) {
-					chessBoard += piece.toString() + ",";
-				}
-				chessBoard += "]";
-			}
-			chessBoard += NL;
-
-			if (row > 0) {
-				chessBoard += space + lineMiddle + NL;
-			} else {
-				chessBoard += space + lineBottom + NL;
-			}
-
+		return moveBuffer;
+	}
+	
+	private BoardRenderer renderer() {
+		if (renderer == null) {
+			renderer = new BoardRenderer();
 		}
-
-		chessBoard += "   a  b  c  d  e  f  g  h   Killed pieces" + NL;
-		return chessBoard;
+		return renderer;
 	}
 	
 	
-	private Cell[][] board;
+	private Position position;
+	private long[] moveBuffer;
+	private final int[] path = new int[Move.MAX_PATH];
+	private int legalCount;
+	// Legal moves of the position, dropped by every edit of the board
+	private MoveCache.Entry legalMoves;
+	private BoardRenderer renderer;
 }
\ No newline at end of file
@@ -0,0 +1,423 @@
+package LogicGame;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Computer player. It runs an alpha-beta search with iterative deepening
+ * on a Position and answers with the best move found before its time
+ * budget runs out. The engine does not depend on the console, so it can
+ * be used from code: new Engine().search(position, 1000).
+ *
+ * Search results are kept in a TranspositionTable whose size is given
+ * when the engine is created. With an endgame Tablebase the engine reads
+ * the exact result of positions with few pieces instead of searching them,
+ * and with an OpeningBook it plays book moves without searching at all.
+ * With a Network the leaves are scored by the network instead of the
+ * piece-square tables of Evaluation.
+ *
+ * @version 1.0
+ */
+public class Engine {
+
+	public final static int MAX_PLY = 128;
+	public final static int INFINITE = 1000000;
+	public final static int WIN = 100000;
+	public final static int TABLEBASE_WIN = WIN / 2;
+
+	public final static int DEFAULT_HASH_MEGABYTES = 16;
+	public final static long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+	private final Position position = new Position();
+	private final long[][] moves = new long[MAX_PLY][MoveGenerator.MAX_MOVES];
+	private final int[][] scores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+	private final long[][] killers = new long[MAX_PLY][2];
+	private final int[][] history = new int[Position.SQUARES][Position.SQUARES];
+	private final TranspositionTable table;
+	private Tablebase tablebase;
+	private OpeningBook book;
+	private Accumulator accumulator;
+
+	private int maxDepth = MAX_PLY - 1;
+	private int depthOffset;
+	private AtomicBoolean stopSignal;
+	// Set on the engines of a ParallelSearch, which ages the shared table once
+	private boolean helper;
+	private long deadline;
+	private boolean stopped;
+	private long nodes;
+	private long generated;
+	private int lastDepth;
+	private int lastScore;
+
+	public Engine() {
+		this(DEFAULT_HASH_MEGABYTES);
+	}
+
+   /**
+    * Creates an engine with a transposition table of the given size.
+    * @param hashMegabytes  memory used by the transposition table.
+    */
+	public Engine(int hashMegabytes) {
+		this(new TranspositionTable(hashMegabytes));
+	}
+
+	public Engine(TranspositionTable table) {
+		this.table = table;
+	}
+
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY - 1));
+	}
+
+   /**
+    * Makes every iteration search deeper than its number. Helper threads
+    * of a parallel search use it so they do not all search the same tree.
+    * @param depthOffset  plies added to each iteration.
+    */
+	public void setDepthOffset(int depthOffset) {
+		this.depthOffset = depthOffset;
+	}
+
+   /**
+    * Sets a flag that stops the search as soon as it becomes true, so
+    * another thread can end it.
+    * @param stopSignal  the shared flag, or null.
+    */
+	public void setStopSignal(AtomicBoolean stopSignal) {
+		this.stopSignal = stopSignal;
+	}
+
+   /**
+    * Marks the engine as one of the threads of a ParallelSearch: it leaves
+    * the shared table to the ParallelSearch, which starts each search on
+    * it once for all the threads.
+    * @param helper  true for an engine of a ParallelSearch.
+    */
+	void setHelper(boolean helper) {
+		this.helper = helper;
+	}
+
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	public void setOpeningBook(OpeningBook book) {
+		this.book = book;
+	}
+
+   /**
+    * Scores the leaves with a neural network, or with the Evaluation
+    * tables when it is null.
+    * @param network  the network, which may be shared by other engines.
+    */
+	public void setNetwork(Network network) {
+		this.accumulator = network == null ? null : new Accumulator(network, MAX_PLY);
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	long getGenerated() {
+		return generated;
+	}
+
+	public int getLastDepth() {
+		return lastDepth;
+	}
+
+	public int getLastScore() {
+		return lastScore;
+	}
+
+   /**
+    * Looks for the best move of the player to move.
+    * @param root  the position to search, it is not modified.
+    * @param timeMillis  hard limit for the whole search, in milliseconds.
+    * @return long  the best packed move, or Move.NONE if there is no legal move.
+    */
+	public long search(Position root, long timeMillis) {
+		if (helper) {
+			// The ParallelSearch records its search once for all its threads
+			generated = 0;
+			return searchRoot(root, timeMillis);
+		}
+		long start = System.nanoTime();
+		Metrics.SearchEvent event = new Metrics.SearchEvent();
+		event.begin();
+		generated = 0;
+		long move = searchRoot(root, timeMillis);
+		Metrics.recordSearch(System.nanoTime() - start, nodes, generated);
+		if (event.shouldCommit()) {
+			event.nodes = nodes;
+			event.generated = generated;
+			event.depth = lastDepth;
+			event.score = lastScore;
+			event.commit();
+		}
+		return move;
+	}
+
+	private long searchRoot(Position root, long timeMillis) {
+		position.copyFrom(root);
+		if (accumulator != null) {
+			accumulator.refresh(position, 0);
+		}
+		deadline = timeMillis == NO_TIME_LIMIT ? Long.MAX_VALUE
+				: System.nanoTime() + timeMillis * 1000000L;
+		stopped = false;
+		nodes = 0;
+		lastDepth = 0;
+		lastScore = 0;
+		clearHeuristics();
+		if (!helper) {
+			table.newSearch();
+		}
+
+		long[] rootMoves = moves[0];
+		int count = MoveGenerator.generate(position, position.getSideToMove(), rootMoves);
+		if (count == 0) {
+			return Move.NONE;
+		}
+		long bestMove = rootMoves[0];
+		if (count == 1) {
+			return bestMove;
+		}
+		if (book != null) {
+			long bookMove = book.getMove(position);
+			if (bookMove != Move.NONE) {
+				return bookMove;
+			}
+		}
+
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			int searchDepth = Math.min(depth + depthOffset, MAX_PLY - 1);
+			int alpha = -INFINITE;
+			long iterationBest = Move.NONE;
+			orderMoves(0, count, bestMove);
+			for (int i = 0; i < count; i++) {
+				long move = rootMoves[i];
+				makeMove(0, move);
+				int score = -alphaBeta(1, searchDepth - 1, -INFINITE, -alpha);
+				position.unmakeMove();
+				if (stopped) {
+					break;
+				}
+				if (score > alpha) {
+					alpha = score;
+					iterationBest = move;
+				}
+			}
+			if (stopped) {
+				break;
+			}
+			bestMove = iterationBest;
+			lastDepth = searchDepth;
+			lastScore = alpha;
+			table.store(position.getHash(), bestMove, TranspositionTable.EXACT, searchDepth, alpha);
+			if (alpha >= WIN - MAX_PLY || alpha <= -WIN + MAX_PLY) {
+				break;
+			}
+		}
+		return bestMove;
+	}
+
+	private int alphaBeta(int ply, int depth, int alpha, int beta) {
+		if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline
+				|| (stopSignal != null && stopSignal.get()))) {
+			stopped = true;
+		}
+		if (stopped) {
+			return 0;
+		}
+		boolean colour = position.getSideToMove();
+		long[] list = moves[ply];
+		int count;
+		if (ply > 0 && position.getQuietPlies() >= Position.DRAW_QUIET_PLIES
+				&& position.getState() == Position.DRAW) {
+			return 0;
+		}
+		if (depth <= 0 || ply >= MAX_PLY - 1) {
+			// Quiescence: a pending capture is forced, so it is always played out
+			count = ply < MAX_PLY - 1 ? MoveGenerator.generateCaptures(position, colour, list) : 0;
+			generated += count;
+			if (count == 0) {
+				// A blocked player has lost, whatever material is left
+				return position.hasMoves(colour) ? evaluate(ply) : -WIN + ply;
+			}
+			orderMoves(ply, count, Move.NONE);
+			for (int i = 0; i < count; i++) {
+				makeMove(ply, list[i]);
+				int score = -alphaBeta(ply + 1, depth - 1, -beta, -alpha);
+				position.unmakeMove();
+				if (stopped) {
+					return 0;
+				}
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+			return alpha;
+		}
+
+		if (tablebase != null
+				&& Integer.bitCount(position.getOccupied()) <= tablebase.getMaxPieces()) {
+			switch (tablebase.probe(position)) {
+			case Tablebase.WIN:
+				return TABLEBASE_WIN - ply;
+			case Tablebase.LOSS:
+				return -TABLEBASE_WIN + ply;
+			case Tablebase.DRAW:
+				return 0;
+			}
+		}
+
+		long key = position.getHash();
+		long hashMove = Move.NONE;
+		long entry = table.probe(key);
+		if (entry != 0) {
+			hashMove = TranspositionTable.moveOf(entry);
+			if (TranspositionTable.depthOf(entry) >= depth) {
+				int score = fromTable(TranspositionTable.scoreOf(entry), ply);
+				int bound = TranspositionTable.boundOf(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER && score >= beta)
+						|| (bound == TranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		count = MoveGenerator.generate(position, colour, list);
+		generated += count;
+		if (count == 0) {
+			return -WIN + ply;
+		}
+
+		int originalAlpha = alpha;
+		long bestMove = Move.NONE;
+		orderMoves(ply, count, hashMove);
+		for (int i = 0; i < count; i++) {
+			long move = list[i];
+			makeMove(ply, move);
+			int score = -alphaBeta(ply + 1, depth - 1, -beta, -alpha);
+			position.unmakeMove();
+			if (stopped) {
+				return 0;
+			}
+			if (score > alpha) {
+				alpha = score;
+				bestMove = move;
+				if (alpha >= beta) {
+					if (!Move.isCapture(move)) {
+						storeKiller(ply, move);
+						history[Move.from(move)][Move.to(move)] += depth * depth;
+					}
+					break;
+				}
+			}
+		}
+
+		int bound = alpha >= beta ? TranspositionTable.LOWER
+				: alpha > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		table.store(key, bestMove, bound, depth, toTable(alpha, ply));
+		return alpha;
+	}
+
+	// Win scores are stored relative to the node, not to the root
+	private static int toTable(int score, int ply) {
+		if (score >= WIN - MAX_PLY) {
+			return score + ply;
+		}
+		if (score <= -WIN + MAX_PLY) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		if (score >= WIN - MAX_PLY) {
+			return score - ply;
+		}
+		if (score <= -WIN + MAX_PLY) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	// Captures first (bigger ones first), then killer moves, then by history
+	private void orderMoves(int ply, int count, long first) {
+		long[] list = moves[ply];
+		int[] score = scores[ply];
+		for (int i = 0; i < count; i++) {
+			long move = list[i];
+			if (first != Move.NONE && TranspositionTable.sameMove(move, first)) {
+				score[i] = Integer.MAX_VALUE;
+			} else if (Move.isCapture(move)) {
+				score[i] = 1 << 28 | Integer.bitCount(Move.captured(move)) << 20;
+			} else if (move == killers[ply][0]) {
+				score[i] = 1 << 27;
+			} else if (move == killers[ply][1]) {
+				score[i] = 1 << 26;
+			} else {
+				score[i] = Math.min(history[Move.from(move)][Move.to(move)], (1 << 26) - 1);
+			}
+		}
+		// Insertion sort, move lists are short
+		for (int i = 1; i < count; i++) {
+			long move = list[i];
+			int value = score[i];
+			int j = i - 1;
+			while (j >= 0 && score[j] < value) {
+				list[j + 1] = list[j];
+				score[j + 1] = score[j];
+				j--;
+			}
+			list[j + 1] = move;
+			score[j + 1] = value;
+		}
+	}
+
+	private void storeKiller(int ply, long move) {
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+	}
+
+	private void clearHeuristics() {
+		for (int ply = 0; ply < MAX_PLY; ply++) {
+			killers[ply][0] = Move.NONE;
+			killers[ply][1] = Move.NONE;
+		}
+		for (int from = 0; from < Position.SQUARES; from++) {
+			for (int to = 0; to < Position.SQUARES; to++) {
+				history[from][to] >>= 3;
+			}
+		}
+	}
+
+	// Plays a move of a ply, keeping the accumulator of the next ply up to date
+	private void makeMove(int ply, long move) {
+		if (accumulator != null) {
+			accumulator.update(position, move, ply);
+		}
+		position.makeMove(move);
+	}
+
+	// Static evaluation from the point of view of the player to move. The
+	// position and the accumulator are kept up to date by every move, so
+	// leaves cost no scan of the board.
+	private int evaluate(int ply) {
+		if (accumulator != null) {
+			// Kept below the tablebase and mate scores whatever the weights
+			int score = accumulator.evaluate(ply, position.getSideToMove());
+			return Math.max(-TABLEBASE_WIN + MAX_PLY, Math.min(score, TABLEBASE_WIN - MAX_PLY));
+		}
+		int score = position.getScore();
+		return position.getSideToMove() == Piece.WHITE ? score : -score;
+	}
+}
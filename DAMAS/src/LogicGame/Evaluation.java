@@ -0,0 +1,69 @@
+package LogicGame;
+
+/**
+ * Static evaluation of the positions, written as one table per kind of
+ * piece giving what a piece of that kind is worth on every square. The
+ * tables add up material, the advancement of the men, the men kept on
+ * their back rank and the control of the centre, so the score of a
+ * position is the sum of the entries of its pieces and a Position keeps it
+ * up to date on its own as pieces move, are captured or crowned.
+ *
+ * Scores are given from the point of view of white: the entries of the
+ * black pieces are negative.
+ *
+ * @version 1.0
+ */
+public final class Evaluation {
+
+	public final static int MAN_VALUE = 100;
+	public final static int KING_VALUE = 300;
+
+	// Bonus of a man for each row it has left behind, counted from its side.
+	// A man on the last row has been crowned, so that entry is never used.
+	private final static int[] ADVANCE = { 0, 0, 2, 4, 6, 9, 13, 0 };
+	// A man left on its back rank keeps the other side from crowning there
+	private final static int BACK_RANK = 8;
+	// Bonus of a piece on the sixteen central cells (c3..f6)
+	private final static int MAN_CENTRE = 3;
+	private final static int KING_CENTRE = 8;
+
+	// TABLE[kind][sq] is the value of a piece of kind Zobrist.kind(colour, king)
+	final static int[][] TABLE = new int[4][Position.SQUARES];
+
+	static {
+		for (int sq = 0; sq < Position.SQUARES; sq++) {
+			int row = Position.row(sq);
+			int col = Position.col(sq);
+			boolean centre = row >= 2 && row <= 5 && col >= 2 && col <= 5;
+			// A black piece on 'sq' is worth as much as a white one on the
+			// square seen from the other side of the board
+			int mirror = Position.SQUARES - 1 - sq;
+			int man = MAN_VALUE + ADVANCE[row] + (row == 0 ? BACK_RANK : 0) + (centre ? MAN_CENTRE : 0);
+			int king = KING_VALUE + (centre ? KING_CENTRE : 0);
+			TABLE[Zobrist.WHITE_MAN][sq] = man;
+			TABLE[Zobrist.WHITE_KING][sq] = king;
+			TABLE[Zobrist.BLACK_MAN][mirror] = -man;
+			TABLE[Zobrist.BLACK_KING][mirror] = -king;
+		}
+	}
+
+	private Evaluation() {
+	}
+
+   /**
+    * Computes the score of a position from scratch. Positions keep their
+    * score up to date on their own, this is meant to check it.
+    * @param position  the position to evaluate.
+    * @return int  the score for white, in hundredths of a man.
+    */
+	public static int compute(Position position) {
+		int score = 0;
+		int pieces = position.getOccupied();
+		while (pieces != 0) {
+			int sq = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			score += TABLE[Zobrist.kind(position.isWhite(sq), position.isKing(sq))][sq];
+		}
+		return score;
+	}
+}
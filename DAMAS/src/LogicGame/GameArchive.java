@@ -0,0 +1,248 @@
+package LogicGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary container of many games written by GameArchiveWriter. Each move
+ * takes two bytes and a footer indexes every game, so game N and ply K of
+ * it are found without reading anything else of the file.
+ *
+ * File format (big endian): int MAGIC, then the moves of every game, then
+ * the index with one record per game:
+ * <pre>
+ *  long  offset of the first move of the game
+ *  int   number of plies
+ *  int   result of the game
+ * </pre>
+ * and a trailer: long offset of the index, int number of games, int MAGIC.
+ *
+ * A game played from a set-up position has the SETUP flag in its result,
+ * BLACK_STARTS too when black moves first, and the white, black and kings
+ * masks of that position as three ints just before its first move.
+ *
+ * A move is packed in 16 bits: the origin square in bits 0-4, the
+ * destination in bits 5-9, and in bits 10-15 which of the legal moves with
+ * that origin and destination it is, in the order of MoveGenerator, so
+ * captures that only differ in the pieces they jump are kept apart.
+ *
+ * @version 1.0
+ */
+public class GameArchive implements Closeable {
+
+	public final static int UNKNOWN = 0;
+	public final static int WHITE_WINS = 1;
+	public final static int BLACK_WINS = 2;
+	public final static int DRAW = 3;
+
+	final static int MAGIC = 0x44474D31;
+	final static int HEADER_BYTES = 4;
+	final static int INDEX_BYTES = 16;
+	final static int TRAILER_BYTES = 16;
+	final static int MOVE_BYTES = 2;
+	final static int SETUP_BYTES = 12;
+
+	// Flags of the result of a game that starts from a set-up position
+	final static int SETUP = 1 << 8;
+	final static int BLACK_STARTS = 1 << 9;
+	private final static int RESULT_MASK = 0xFF;
+	private final static Position INITIAL = new ChessBoard().getPosition();
+
+	private final static int SQUARE_MASK = 0x1F;
+	private final static int MAX_ALTERNATIVES = 64;
+
+	private final FileChannel channel;
+	private final long indexOffset;
+	private final int count;
+
+	private GameArchive(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer header = ByteBuffer.allocate(TRAILER_BYTES);
+		long size = channel.size();
+		if (size < HEADER_BYTES + TRAILER_BYTES) {
+			throw new IOException("Not a game archive");
+		}
+		read(header, size - TRAILER_BYTES);
+		indexOffset = header.getLong();
+		count = header.getInt();
+		if (header.getInt() != MAGIC || indexOffset + (long) count * INDEX_BYTES != size - TRAILER_BYTES) {
+			throw new IOException("Not a game archive");
+		}
+	}
+
+   /**
+    * Opens a game archive.
+    * @param file  the path of the file written by GameArchiveWriter.
+    * @return GameArchive  the archive.
+    * @exception IOException if the file cannot be read or is not an archive.
+    */
+	public static GameArchive open(String file) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		try {
+			return new GameArchive(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getPlies(int game) throws IOException {
+		return index(game).getInt(8);
+	}
+
+	public int getResult(int game) throws IOException {
+		return index(game).getInt(12) & RESULT_MASK;
+	}
+
+   /**
+    * Sets a position to the one a game starts from: the initial position,
+    * or the position it was set up from.
+    * @param game  the game, from 0.
+    * @param position  the position to set.
+    * @exception IOException if the file cannot be read.
+    */
+	public void getStart(int game, Position position) throws IOException {
+		ByteBuffer record = index(game);
+		int flags = record.getInt(12);
+		if ((flags & SETUP) == 0) {
+			position.copyFrom(INITIAL);
+			return;
+		}
+		ByteBuffer setup = ByteBuffer.allocate(SETUP_BYTES);
+		read(setup, record.getLong(0) - SETUP_BYTES);
+		position.set(setup.getInt(), setup.getInt(), setup.getInt(),
+				(flags & BLACK_STARTS) == 0 ? Piece.WHITE : Piece.BLACK);
+	}
+
+   /**
+    * Reads one move of a game without reading the rest of the game.
+    * @param game  the game, from 0.
+    * @param ply  the ply, from 0.
+    * @return int  the move packed in 16 bits; see decode.
+    * @exception IOException if the file cannot be read.
+    */
+	public int getMove(int game, int ply) throws IOException {
+		ByteBuffer record = index(game);
+		if (ply < 0 || ply >= record.getInt(8)) {
+			throw new IndexOutOfBoundsException("ply " + ply);
+		}
+		ByteBuffer move = ByteBuffer.allocate(MOVE_BYTES);
+		read(move, record.getLong(0) + (long) ply * MOVE_BYTES);
+		return move.getShort() & 0xFFFF;
+	}
+
+   /**
+    * Reads the moves of a game, or its first plies, in one read.
+    * @param game  the game, from 0.
+    * @param plies  the number of plies to read, at most the length of the game.
+    * @param moves  buffer receiving the moves packed in 16 bits.
+    * @return int  the number of moves read.
+    * @exception IOException if the file cannot be read.
+    */
+	public int getMoves(int game, int plies, int[] moves) throws IOException {
+		ByteBuffer record = index(game);
+		int length = Math.min(Math.min(plies, record.getInt(8)), moves.length);
+		ByteBuffer buffer = ByteBuffer.allocate(length * MOVE_BYTES);
+		read(buffer, record.getLong(0));
+		for (int i = 0; i < length; i++) {
+			moves[i] = buffer.getShort() & 0xFFFF;
+		}
+		return length;
+	}
+
+   /**
+    * Sets a position to the one reached after some plies of a game.
+    * @param game  the game, from 0.
+    * @param ply  the number of plies to play from the start of the game.
+    * @param position  the position to set.
+    * @return int  the number of plies played, less than ply if the game
+    *              is shorter or holds a move that is not legal.
+    * @exception IOException if the file cannot be read.
+    */
+	public int seek(int game, int ply, Position position) throws IOException {
+		int[] moves = new int[Math.max(0, Math.min(ply, getPlies(game)))];
+		int length = getMoves(game, moves.length, moves);
+		getStart(game, position);
+		long[] buffer = new long[MoveGenerator.MAX_MOVES];
+		for (int i = 0; i < length; i++) {
+			long move = decode(position, moves[i], buffer);
+			if (move == Move.NONE) {
+				return i;
+			}
+			position.play(move);
+		}
+		return length;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+   /**
+    * Packs a legal move of a position in 16 bits.
+    * @param position  the position the move is played on.
+    * @param move  the packed move.
+    * @param buffer  buffer used to generate the legal moves.
+    * @return int  the move in 16 bits, or -1 if it is not legal.
+    */
+	public static int encode(Position position, long move, long[] buffer) {
+		int count = MoveGenerator.generate(position, position.getSideToMove(), buffer);
+		int alternative = 0;
+		for (int i = 0; i < count; i++) {
+			if (Move.from(buffer[i]) == Move.from(move) && Move.to(buffer[i]) == Move.to(move)) {
+				if (buffer[i] == move) {
+					return alternative < MAX_ALTERNATIVES
+							? Move.from(move) | Move.to(move) << 5 | alternative << 10 : -1;
+				}
+				alternative++;
+			}
+		}
+		return -1;
+	}
+
+   /**
+    * Unpacks a move written by encode.
+    * @param position  the position the move is played on.
+    * @param code  the move in 16 bits.
+    * @param buffer  buffer used to generate the legal moves.
+    * @return long  the packed move, or Move.NONE if it is not legal.
+    */
+	public static long decode(Position position, int code, long[] buffer) {
+		int from = code & SQUARE_MASK;
+		int to = (code >>> 5) & SQUARE_MASK;
+		int alternative = code >>> 10;
+		int count = MoveGenerator.generate(position, position.getSideToMove(), buffer);
+		for (int i = 0; i < count; i++) {
+			if (Move.from(buffer[i]) == from && Move.to(buffer[i]) == to && alternative-- == 0) {
+				return buffer[i];
+			}
+		}
+		return Move.NONE;
+	}
+
+	private ByteBuffer index(int game) throws IOException {
+		if (game < 0 || game >= count) {
+			throw new IndexOutOfBoundsException("game " + game);
+		}
+		ByteBuffer record = ByteBuffer.allocate(INDEX_BYTES);
+		read(record, indexOffset + (long) game * INDEX_BYTES);
+		return record;
+	}
+
+	private void read(ByteBuffer buffer, long offset) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of the game archive");
+			}
+		}
+		buffer.flip();
+	}
+}
@@ -0,0 +1,287 @@
+package LogicGame;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Writes a GameArchive. Games are added one at a time and their moves are
+ * written as they come; only the index, 16 bytes per game, is kept in
+ * memory until close writes it at the end of the file.
+ *
+ * A game holding a move that is not legal is stored up to that move and
+ * counted as truncated, and the program names each one it meets.
+ *
+ * Run it as a program: java LogicGame.GameArchiveWriter archive input...
+ * where each input is a PDN file, a game file in the "a3 b4" format of
+ * CheckersIO or a directory of them.
+ *
+ * @version 1.0
+ */
+public class GameArchiveWriter implements Closeable {
+
+	private final static int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final Position position = new Position();
+	private final Position initial = new ChessBoard().getPosition();
+	private final long[] moveBuffer = new long[MoveGenerator.MAX_MOVES];
+	private final int[] path = new int[Move.MAX_PATH];
+	private long[] offsets = new long[1024];
+	private int[] plies = new int[1024];
+	private int[] results = new int[1024];
+	private int count;
+	private int truncated;
+	private long offset;
+
+	private GameArchiveWriter(FileChannel channel) {
+		this.channel = channel;
+		buffer.putInt(GameArchive.MAGIC);
+		offset = GameArchive.HEADER_BYTES;
+	}
+
+	public static GameArchiveWriter create(String file) throws IOException {
+		return new GameArchiveWriter(FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	public int getGames() {
+		return count;
+	}
+
+   /**
+    * Returns how many games were stored short of their last move, or
+    * not at all for a PDN game set up from a position that is not valid.
+    */
+	public int getTruncated() {
+		return truncated;
+	}
+
+   /**
+    * Adds a game given as packed moves.
+    * @param moves  the moves, played from the initial position.
+    * @param length  the number of moves.
+    * @param result  GameArchive.UNKNOWN, WHITE_WINS, BLACK_WINS or DRAW.
+    * @return int  the number of plies stored, up to the first illegal move.
+    * @exception IOException if the file cannot be written.
+    */
+	public int add(long[] moves, int length, int result) throws IOException {
+		position.copyFrom(initial);
+		int ply = 0;
+		for (; ply < length; ply++) {
+			int code = GameArchive.encode(position, moves[ply], moveBuffer);
+			if (code < 0) {
+				break;
+			}
+			putMove(code);
+			position.play(moves[ply]);
+		}
+		return addIndex(ply, length, result);
+	}
+
+   /**
+    * Adds a game in the "a3 b4" notation of CheckersIO.
+    * @param lines  the moves, one per entry.
+    * @return int  the number of plies stored, up to the first illegal move.
+    * @exception IOException if the file cannot be written.
+    */
+	public int add(ArrayList<String> lines) throws IOException {
+		position.copyFrom(initial);
+		int ply = 0;
+		int length = 0;
+		boolean legal = true;
+		for (String line : lines) {
+			if (line.trim().isEmpty() || CheckersIO.getSnapshot(line) != null) {
+				continue;
+			}
+			// The moves after an illegal one are only counted
+			length++;
+			if (!legal) {
+				continue;
+			}
+			long move = Move.parse(position, line, moveBuffer, path);
+			int code = move == Move.NONE ? -1 : GameArchive.encode(position, move, moveBuffer);
+			if (code < 0) {
+				legal = false;
+				continue;
+			}
+			putMove(code);
+			position.play(move);
+			ply++;
+		}
+		return addIndex(ply, length, finalResult(GameArchive.UNKNOWN));
+	}
+
+   /**
+    * Adds a PDN game, played from the position of its FEN tag if it has
+    * one.
+    * @param game  the game.
+    * @return int  the number of plies stored, up to the first illegal move.
+    * @exception IOException if the file cannot be written.
+    */
+	public int add(PdnGame game) throws IOException {
+		if (!game.getStart(position)) {
+			return addIndex(0, Math.max(1, game.getMoves().size()), GameArchive.UNKNOWN);
+		}
+		int setup = 0;
+		if (position.getWhite() != initial.getWhite() || position.getBlack() != initial.getBlack()
+				|| position.getKings() != initial.getKings() || position.getSideToMove() != initial.getSideToMove()) {
+			// The masks of the start go just before the moves of the game
+			setup = GameArchive.SETUP | (position.getSideToMove() == Piece.BLACK ? GameArchive.BLACK_STARTS : 0);
+			ensure(GameArchive.SETUP_BYTES);
+			buffer.putInt(position.getWhite()).putInt(position.getBlack()).putInt(position.getKings());
+			offset += GameArchive.SETUP_BYTES;
+		}
+		int ply = 0;
+		for (String text : game.getMoves()) {
+			long move = PdnGame.parseMove(position, text, moveBuffer, path);
+			if (move == Move.NONE) {
+				break;
+			}
+			int code = GameArchive.encode(position, move, moveBuffer);
+			if (code < 0) {
+				break;
+			}
+			putMove(code);
+			position.play(move);
+			ply++;
+		}
+		return addIndex(ply, game.getMoves().size(), finalResult(result(game.getResult())) | setup);
+	}
+
+   /**
+    * Writes the index and the trailer and closes the file.
+    * @exception IOException if the file cannot be written.
+    */
+	public void close() throws IOException {
+		long indexOffset = offset;
+		for (int i = 0; i < count; i++) {
+			ensure(GameArchive.INDEX_BYTES);
+			buffer.putLong(offsets[i]).putInt(plies[i]).putInt(results[i]);
+		}
+		ensure(GameArchive.TRAILER_BYTES);
+		buffer.putLong(indexOffset).putInt(count).putInt(GameArchive.MAGIC);
+		drain();
+		channel.close();
+	}
+
+	// A game that ends blocked or drawn by quiet moves has that result whatever it says
+	private int finalResult(int result) {
+		switch (position.getState()) {
+		case Position.WHITE_WINS:
+			return GameArchive.WHITE_WINS;
+		case Position.BLACK_WINS:
+			return GameArchive.BLACK_WINS;
+		case Position.DRAW:
+			return GameArchive.DRAW;
+		}
+		return result;
+	}
+
+	private static int result(String pdn) {
+		if (pdn.equals("2-0") || pdn.equals("1-0")) {
+			return GameArchive.WHITE_WINS;
+		}
+		if (pdn.equals("0-2") || pdn.equals("0-1")) {
+			return GameArchive.BLACK_WINS;
+		}
+		if (pdn.equals("1-1") || pdn.equals("1/2-1/2")) {
+			return GameArchive.DRAW;
+		}
+		return GameArchive.UNKNOWN;
+	}
+
+	private void putMove(int code) throws IOException {
+		ensure(GameArchive.MOVE_BYTES);
+		buffer.putShort((short) code);
+	}
+
+	// Indexes a game of 'length' plies stored, out of 'total' it had
+	private int addIndex(int length, int total, int result) {
+		if (length < total) {
+			truncated++;
+		}
+		if (count == offsets.length) {
+			offsets = Arrays.copyOf(offsets, count * 2);
+			plies = Arrays.copyOf(plies, count * 2);
+			results = Arrays.copyOf(results, count * 2);
+		}
+		offsets[count] = offset;
+		plies[count] = length;
+		results[count] = result;
+		offset += (long) length * GameArchive.MOVE_BYTES;
+		count++;
+		return length;
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void addPath(File path) throws IOException {
+		if (path.isDirectory()) {
+			File[] files = path.listFiles();
+			Arrays.sort(files);
+			for (File file : files) {
+				addPath(file);
+			}
+		} else if (path.getName().toLowerCase().endsWith(".pdn")) {
+			try (PdnReader in = PdnReader.open(path.getPath())) {
+				PdnGame game;
+				for (int i = 1; (game = in.next()) != null; i++) {
+					int before = truncated;
+					add(game);
+					if (truncated > before) {
+						System.err.println(">> Game " + i + " of " + path + " is truncated at an illegal move");
+					}
+				}
+			}
+		} else if (path.isFile()) {
+			CheckersIO io = new CheckersIO();
+			io.setInputFile(path.getPath());
+			int before = truncated;
+			add(io.read());
+			if (truncated > before) {
+				System.err.println(">> " + path + " is truncated at an illegal move");
+			}
+		}
+	}
+
+   /**
+    * Packs game files into an archive.
+    * @param args  the archive file and the inputs.
+    */
+	public static void main(String args[]) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: java LogicGame.GameArchiveWriter archive input...");
+			return;
+		}
+		GameArchiveWriter writer = create(args[0]);
+		try {
+			for (int i = 1; i < args.length; i++) {
+				writer.addPath(new File(args[i]));
+			}
+		} finally {
+			writer.close();
+		}
+		System.out.println(writer.getGames() + " games, " + writer.getTruncated() + " truncated, "
+				+ new File(args[0]).length() + " bytes");
+	}
+}
@@ -0,0 +1,234 @@
+package LogicGame;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Load generator for GameServer. Every connection plays a share of the
+ * games against itself: it creates and joins them, then sends one random
+ * legal move for each of its games per round, all in a batch, and reads
+ * the answers. Finished games are replaced by new ones, so the number of
+ * games in play stays constant.
+ *
+ * The latency of a move is the time from the write of its batch to the
+ * read of its answer. At the end the moves per second and the median and
+ * p99 latencies are printed.
+ *
+ * Run it as a program:
+ * java LogicGame.GameLoadClient [-games=N] [-connections=N] [-seconds=N] host port
+ *
+ * @version 1.0
+ */
+public class GameLoadClient {
+
+	public final static int DEFAULT_GAMES = 10000;
+	public final static int DEFAULT_CONNECTIONS = 100;
+	public final static int DEFAULT_SECONDS = 10;
+
+	// Longer games are resigned, so a drawn ending does not run forever
+	private final static int MAX_PLIES = 200;
+
+	private final String host;
+	private final int port;
+	private final AtomicBoolean stop = new AtomicBoolean();
+
+	public GameLoadClient(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+
+   /**
+    * Plays the games of one connection until stop is set.
+    */
+	private class Player implements Runnable {
+		final int[] ids;
+		final Position[] positions;
+		final int[] plies;
+		final long[] buffer = new long[MoveGenerator.MAX_MOVES];
+		final int[] path = new int[Move.MAX_PATH];
+		final Random random;
+		final String[] sent;
+		final boolean[] ended;
+		long[] latencies = new long[1 << 16];
+		int samples;
+		long moves;
+		IOException error;
+
+		Player(int games, long seed) {
+			ids = new int[games];
+			positions = new Position[games];
+			plies = new int[games];
+			sent = new String[games];
+			ended = new boolean[games];
+			random = new Random(seed);
+		}
+
+		public void run() {
+			try (Socket socket = new Socket(host, port)) {
+				socket.setTcpNoDelay(true);
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				BufferedWriter out = new BufferedWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), 1 << 16);
+				for (int i = 0; i < ids.length; i++) {
+					newGame(i, in, out);
+				}
+				while (!stop.get()) {
+					round(in, out);
+				}
+				out.write("QUIT\n");
+				out.flush();
+			} catch (IOException e) {
+				error = e;
+			}
+		}
+
+		private void round(BufferedReader in, BufferedWriter out) throws IOException {
+			for (int i = 0; i < ids.length; i++) {
+				Position position = positions[i];
+				int count = MoveGenerator.generate(position, position.getSideToMove(), buffer);
+				if (count == 0 || plies[i] >= MAX_PLIES) {
+					out.write("RESIGN " + ids[i] + "\n");
+					sent[i] = null;
+				} else {
+					sent[i] = Move.toString(position, buffer[random.nextInt(count)], buffer);
+					out.write("MOVE " + ids[i] + " " + sent[i] + "\n");
+				}
+			}
+			long start = System.nanoTime();
+			out.flush();
+			for (int i = 0; i < ids.length; i++) {
+				String reply = in.readLine();
+				if (reply == null) {
+					throw new IOException("Connection closed by the server");
+				}
+				if (sent[i] == null) {
+					ended[i] = true;
+					continue;
+				}
+				record(System.nanoTime() - start);
+				moves++;
+				if (reply.startsWith("OK")) {
+					positions[i].play(Move.parse(positions[i], sent[i], buffer, path));
+					plies[i]++;
+				} else if (reply.startsWith("OVER")) {
+					ended[i] = true;
+				} else {
+					throw new IOException("Unexpected answer: " + reply);
+				}
+			}
+			// Replaced only now: the answers of the batch come first on the stream
+			for (int i = 0; i < ids.length; i++) {
+				if (ended[i]) {
+					newGame(i, in, out);
+				}
+			}
+		}
+
+		private void newGame(int i, BufferedReader in, BufferedWriter out) throws IOException {
+			out.write("CREATE\n");
+			out.flush();
+			String[] created = in.readLine().split(" ");
+			out.write("JOIN " + created[1] + "\n");
+			out.flush();
+			in.readLine();
+			ids[i] = Integer.parseInt(created[1]);
+			positions[i] = new ChessBoard().getPosition();
+			plies[i] = 0;
+			ended[i] = false;
+		}
+
+		private void record(long nanos) {
+			if (samples == latencies.length) {
+				latencies = Arrays.copyOf(latencies, samples * 2);
+			}
+			latencies[samples++] = nanos;
+		}
+	}
+
+   /**
+    * Runs the load.
+    * @param games  the number of games in play at any time.
+    * @param connections  the number of connections sharing them.
+    * @param seconds  how long to play.
+    */
+	public void run(int games, int connections, int seconds) throws IOException, InterruptedException {
+		Player[] players = new Player[connections];
+		Thread[] threads = new Thread[connections];
+		for (int i = 0; i < connections; i++) {
+			int share = games / connections + (i < games % connections ? 1 : 0);
+			players[i] = new Player(share, i);
+			threads[i] = new Thread(players[i], "load-" + i);
+			threads[i].start();
+		}
+		long start = System.nanoTime();
+		Thread.sleep(seconds * 1000L);
+		stop.set(true);
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		long moves = 0;
+		int samples = 0;
+		for (Player player : players) {
+			if (player.error != null) {
+				throw player.error;
+			}
+			moves += player.moves;
+			samples += player.samples;
+		}
+		long[] latencies = new long[samples];
+		int n = 0;
+		for (Player player : players) {
+			System.arraycopy(player.latencies, 0, latencies, n, player.samples);
+			n += player.samples;
+		}
+		Arrays.sort(latencies);
+		System.out.println(String.format("%d games, %d connections: %d moves in %.1f s, %.0f moves/s, "
+				+ "p50 %.2f ms, p99 %.2f ms", games, connections, moves, elapsed, moves / elapsed,
+				percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6));
+	}
+
+	private static long percentile(long[] sorted, double fraction) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+	}
+
+   /**
+    * Runs the load against a server.
+    * @param args  optional -games=N, -connections=N and -seconds=N, the host and the port.
+    */
+	public static void main(String args[]) throws IOException, InterruptedException {
+		int games = DEFAULT_GAMES;
+		int connections = DEFAULT_CONNECTIONS;
+		int seconds = DEFAULT_SECONDS;
+		int first = 0;
+		for (; first < args.length && args[first].startsWith("-"); first++) {
+			String value = args[first].substring(args[first].indexOf('=') + 1);
+			if (args[first].startsWith("-games=")) {
+				games = Integer.parseInt(value);
+			} else if (args[first].startsWith("-connections=")) {
+				connections = Integer.parseInt(value);
+			} else if (args[first].startsWith("-seconds=")) {
+				seconds = Integer.parseInt(value);
+			}
+		}
+		if (args.length - first < 2) {
+			System.err.println("Usage: java LogicGame.GameLoadClient [-games=N] [-connections=N] [-seconds=N] host port");
+			return;
+		}
+		new GameLoadClient(args[first], Integer.parseInt(args[first + 1]))
+				.run(games, Math.min(connections, games), seconds);
+	}
+}
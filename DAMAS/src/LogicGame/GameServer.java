@@ -0,0 +1,326 @@
+package LogicGame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * TCP server hosting many games of checkers at once. A single thread runs
+ * an NIO selector loop over every connection and plays the moves on a
+ * GameSession per game, so games need no locking and an idle connection
+ * costs a few kilobytes of buffers, not a thread.
+ *
+ * The protocol is one ASCII command per line, answered by one line:
+ * <pre>
+ *  CREATE             OK id WHITE       a new game, the caller plays white
+ *  JOIN id            OK id BLACK       the caller plays black
+ *  MOVE id a3 b4      OK id             the move was played; a capture
+ *  MOVE id a3xc5xe7                     sharing its ends with another one
+ *                                       gives its landing squares
+ *                     OVER id WINNER    the move ended the game, WINNER
+ *                                       is WHITE, BLACK or DRAW
+ *  STATE id           STATE id fen      the position, see ChessBoard.toFen
+ *  RESIGN id          OVER id WINNER
+ *  (none)             OVER id WINNER    sent to the other player when
+ *                                       a MOVE or RESIGN ends the game
+ *  QUIT               BYE
+ * </pre>
+ * Anything else is answered with ERR and the reason. When a MOVE or a
+ * RESIGN ends a game, the other player is sent the same OVER id WINNER
+ * line without asking for it. A finished game is forgotten once its
+ * result has been sent, and the games of a connection are dropped when
+ * it closes. A command failing on an internal error
+ * closes its own connection and the server goes on with the others.
+ *
+ * Run it as a program: java LogicGame.GameServer [port]
+ *
+ * @version 1.0
+ */
+public class GameServer {
+
+	public final static int DEFAULT_PORT = 7777;
+
+	private final static int BUFFER_SIZE = 4096;
+	private final static int MAX_LINE = 256;
+	// Stop reading from a client that does not read its answers
+	private final static int MAX_PENDING_OUTPUT = 1 << 20;
+
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	private final HashMap<Integer, Game> games = new HashMap<Integer, Game>();
+	private final StringBuilder reply = new StringBuilder();
+	private int nextGame = 1;
+	private long moves;
+
+	private static class Game {
+		final int id;
+		final GameSession session = new GameSession();
+		Connection white;
+		Connection black;
+
+		Game(int id) {
+			this.id = id;
+		}
+	}
+
+	private static class Connection {
+		final SocketChannel channel;
+		final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+		ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+		final StringBuilder line = new StringBuilder();
+		final ArrayList<Game> games = new ArrayList<Game>();
+		boolean closing;
+
+		Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+	}
+
+	public GameServer(int port) throws IOException {
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port), 1024);
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	public synchronized long getMoves() {
+		return moves;
+	}
+
+   /**
+    * Serves clients until the thread is interrupted or the server closed.
+    * @exception IOException if the selector fails.
+    */
+	public void run() throws IOException {
+		while (!Thread.currentThread().isInterrupted() && selector.isOpen()) {
+			selector.select();
+			if (!selector.isOpen()) {
+				break;
+			}
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				try {
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					Connection connection = (Connection) key.attachment();
+					if (key.isReadable()) {
+						read(key, connection);
+					}
+					if (key.isValid() && key.isWritable()) {
+						write(key, connection);
+					}
+				} catch (IOException e) {
+					close(key);
+				} catch (RuntimeException e) {
+					// A failing command drops its own connection, never the
+					// server and the games of the other clients
+					System.err.println(">> Closing a connection after an internal error: " + e);
+					if (key.attachment() instanceof Connection) {
+						close(key);
+					}
+				}
+			}
+		}
+	}
+
+	public void close() throws IOException {
+		server.close();
+		selector.close();
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while ((channel = server.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+		}
+	}
+
+	private void read(SelectionKey key, Connection connection) throws IOException {
+		if (connection.channel.read(connection.in) < 0) {
+			close(key);
+			return;
+		}
+		connection.in.flip();
+		while (connection.in.hasRemaining() && !connection.closing) {
+			char c = (char) (connection.in.get() & 0xFF);
+			if (c == '\n') {
+				execute(connection, connection.line.toString().trim());
+				connection.line.setLength(0);
+			} else if (connection.line.length() < MAX_LINE) {
+				connection.line.append(c);
+			}
+		}
+		connection.in.compact();
+		write(key, connection);
+	}
+
+	private void write(SelectionKey key, Connection connection) throws IOException {
+		connection.out.flip();
+		connection.channel.write(connection.out);
+		connection.out.compact();
+		if (connection.out.position() > 0) {
+			key.interestOps(connection.out.position() > MAX_PENDING_OUTPUT
+					? SelectionKey.OP_WRITE : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+		} else if (connection.closing) {
+			close(key);
+		} else {
+			key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+
+	private void close(SelectionKey key) {
+		Connection connection = (Connection) key.attachment();
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			// Nothing left to do with a channel that cannot be closed
+		}
+		if (connection != null) {
+			for (Game game : connection.games) {
+				games.remove(game.id);
+			}
+		}
+	}
+
+	// Runs one command and queues its answer
+	private void execute(Connection connection, String command) {
+		reply.setLength(0);
+		String[] words = command.split("\\s+");
+		String name = words[0].toUpperCase();
+		try {
+			if (name.equals("CREATE") && words.length == 1) {
+				Game game = new Game(nextGame++);
+				game.white = connection;
+				connection.games.add(game);
+				games.put(game.id, game);
+				reply.append("OK ").append(game.id).append(" WHITE");
+			} else if (name.equals("JOIN") && words.length == 2) {
+				Game game = game(words[1]);
+				if (game.black != null) {
+					throw new CheckersException(">> The game already has two players");
+				}
+				game.black = connection;
+				if (game.white != connection) {
+					connection.games.add(game);
+				}
+				reply.append("OK ").append(game.id).append(" BLACK");
+			} else if (name.equals("MOVE") && (words.length == 3 || words.length == 4)) {
+				Game game = game(words[1]);
+				if ((game.session.getPlayer() == Piece.WHITE ? game.white : game.black) != connection) {
+					throw new CheckersException(CheckersException.PLAYER_MUST_MOVE_HIS_PIECES,
+							game.session.getPlayer() ? "WHITE" : "BLACK");
+				}
+				game.session.move(words.length == 4 ? words[2] + " " + words[3] : words[2]);
+				synchronized (this) {
+					moves++;
+				}
+				if (game.session.isFinished()) {
+					over(connection, game, game.session.isDraw() ? "DRAW"
+							: game.session.getWinner() ? "WHITE" : "BLACK");
+				} else {
+					reply.append("OK ").append(game.id);
+				}
+			} else if (name.equals("STATE") && words.length == 2) {
+				Game game = game(words[1]);
+				reply.append("STATE ").append(game.id).append(' ').append(game.session.toFen());
+			} else if (name.equals("RESIGN") && words.length == 2) {
+				Game game = game(words[1]);
+				if (game.white != connection && game.black != connection) {
+					throw new CheckersException(">> Only a player can resign the game");
+				}
+				// A client playing both sides resigns for the player to move
+				boolean loser = game.white == connection && game.black == connection
+						? game.session.getPlayer() : game.white == connection;
+				over(connection, game, loser ? "BLACK" : "WHITE");
+			} else if (name.equals("QUIT") && words.length == 1) {
+				reply.append("BYE");
+				connection.closing = true;
+			} else {
+				throw new CheckersException(CheckersException.INCORRECT_OPTION);
+			}
+		} catch (CheckersException e) {
+			reply.setLength(0);
+			reply.append("ERR ").append(e.getMessage().replace(">> ", ""));
+		}
+		reply.append('\n');
+		queue(connection, reply);
+	}
+
+	private Game game(String id) throws CheckersException {
+		Game game = null;
+		try {
+			game = games.get(Integer.parseInt(id));
+		} catch (NumberFormatException e) {
+			// Reported below as an unknown game
+		}
+		if (game == null) {
+			throw new CheckersException(">> There is no game ", id);
+		}
+		return game;
+	}
+
+	// Ends a game: the caller gets OVER as its answer and the other player,
+	// when it is another connection, gets the same line unasked
+	private void over(Connection caller, Game game, String winner) {
+		reply.append("OVER ").append(game.id).append(' ').append(winner);
+		Connection other = game.white == caller ? game.black : game.white;
+		if (other != null && other != caller) {
+			queue(other, new StringBuilder(reply).append('\n'));
+			SelectionKey key = other.channel.keyFor(selector);
+			if (key != null && key.isValid()) {
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+			}
+		}
+		games.remove(game.id);
+		game.white.games.remove(game);
+		if (game.black != null) {
+			game.black.games.remove(game);
+		}
+	}
+
+	// The protocol is ASCII, so characters are written as bytes
+	private static void queue(Connection connection, CharSequence text) {
+		if (connection.out.remaining() < text.length()) {
+			ByteBuffer bigger = ByteBuffer.allocate(Math.max(connection.out.capacity() * 2,
+					connection.out.position() + text.length()));
+			connection.out.flip();
+			bigger.put(connection.out);
+			connection.out = bigger;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			connection.out.put((byte) text.charAt(i));
+		}
+	}
+
+   /**
+    * Starts the server.
+    * @param args  optional port, DEFAULT_PORT by default.
+    */
+	public static void main(String args[]) throws IOException {
+		GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+		System.out.println(">> Listening on port " + server.getPort());
+		server.run();
+	}
+}
@@ -0,0 +1,134 @@
+package LogicGame;
+
+import java.util.ArrayList;
+
+/**
+ * One game of checkers that can be embedded in another program. All the
+ * state of the game (board, player to move, moves played) belongs to the
+ * session, so any number of sessions can be played in the same JVM, and
+ * every method is synchronized, so a session can be shared by threads.
+ *
+ * @version 1.0
+ */
+public class GameSession {
+
+	private final ChessBoard chessBoard;
+	private boolean player;
+	private boolean finished;
+
+   /**
+    * Starts a game from the initial position, white to move.
+    */
+	public GameSession() {
+		chessBoard = new ChessBoard();
+		player = Piece.WHITE;
+		finished = chessBoard.isThereWinner() || chessBoard.isDraw();
+	}
+
+   /**
+    * Starts a game from a position snapshot.
+    * @param fen  the snapshot, as written by toFen.
+    * @exception CheckersException if the snapshot is not valid.
+    */
+	public GameSession(String fen) throws CheckersException {
+		chessBoard = new ChessBoard();
+		chessBoard.setFen(fen);
+		player = chessBoard.getPlayerToMove();
+		finished = chessBoard.isThereWinner() || chessBoard.isDraw();
+	}
+
+   /**
+    * Plays a move of the player to move.
+    * @param move  the move in "a3 b4" notation, or "a3xc5xe7" for a
+    *              capture sharing its ends with another one.
+    * @exception CheckersException if the game is over or the move is not legal.
+    */
+	public synchronized void move(String move) throws CheckersException {
+		if (finished) {
+			throw new CheckersException(
+					CheckersException.NO_STARTED_GAME);
+		}
+		chessBoard.movePiece(move.trim().toLowerCase(), player);
+		player = !player;
+		finished = chessBoard.isThereWinner() || chessBoard.isDraw();
+	}
+
+   /**
+    * Plays a move of the player to move.
+    * @param from  the initial position, like "a3".
+    * @param to  the final position, like "b4".
+    * @exception CheckersException if the game is over or the move is not legal.
+    */
+	public synchronized void move(String from, String to) throws CheckersException {
+		if (finished) {
+			throw new CheckersException(
+					CheckersException.NO_STARTED_GAME);
+		}
+		chessBoard.movePiece(from, to, player);
+		player = !player;
+		finished = chessBoard.isThereWinner() || chessBoard.isDraw();
+	}
+
+	public synchronized boolean getPlayer() {
+		return player;
+	}
+
+	public synchronized boolean isFinished() {
+		return finished;
+	}
+
+	public synchronized boolean isDraw() {
+		return finished && chessBoard.isDraw();
+	}
+
+   /**
+    * Returns the winner of a finished game.
+    * @return boolean  Piece.WHITE or Piece.BLACK.
+    * @exception CheckersException if the game is still in play or drawn.
+    */
+	public synchronized boolean getWinner() throws CheckersException {
+		if (!finished || chessBoard.isDraw()) {
+			throw new CheckersException(
+					CheckersException.GAME_STILL_IN_PLAY);
+		}
+		return chessBoard.getWinnerColour();
+	}
+
+   /**
+    * Returns the moves played, in "a3 b4" notation.
+    * @return ArrayList<String>  a copy of the moves.
+    */
+	public synchronized ArrayList<String> getMoves() {
+		return new ArrayList<String>(chessBoard.getMoves());
+	}
+
+   /**
+    * Returns the destinations of the piece on a position.
+    * @param position  a position on the board, like "a3".
+    * @return ArrayList<String>  the positions the piece can move to.
+    */
+	public synchronized ArrayList<String> getValidMoves(String position) {
+		return chessBoard.getValidMoves(position);
+	}
+
+	public synchronized String toFen() {
+		return chessBoard.toFen();
+	}
+
+	public synchronized long getHashKey() {
+		return chessBoard.getHashKey();
+	}
+
+   /**
+    * Returns a copy of the current position, for an engine or an analysis
+    * that must not touch the game.
+    * @return Position  the copy.
+    */
+	public synchronized Position getPosition() {
+		return new Position(chessBoard.getPosition());
+	}
+
+	public synchronized String toString() {
+		return chessBoard.toString();
+	}
+}
@@ -0,0 +1,265 @@
+package LogicGame;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Counters and latency histograms of the hot paths of the game: moves
+ * played on a ChessBoard, moves generated, engine searches and game files
+ * read or written. They are always on and cost a few atomic additions per
+ * operation; a snapshot is taken with Metrics.snapshot().
+ *
+ * The same operations are also JDK Flight Recorder events, in the
+ * "Checkers" category, so a recording started with
+ * -XX:StartFlightRecording shows each of them on the timeline. Events
+ * that are not enabled in the recording cost nothing.
+ *
+ * MoveGenerator itself is not instrumented: perft and the engine call it
+ * hundreds of millions of times. The moves it generates are counted per
+ * search, per ChessBoard call and per MoveCache miss instead.
+ *
+ * @version 1.0
+ */
+public final class Metrics {
+
+	private final static com.sun.management.ThreadMXBean THREADS = threads();
+
+	private final static LongAdder MOVES = new LongAdder();
+	private final static LongAdder ILLEGAL_MOVES = new LongAdder();
+	private final static LongAdder MOVES_GENERATED = new LongAdder();
+	private final static LongAdder ALLOCATED_BYTES = new LongAdder();
+	private final static LongAdder SEARCHES = new LongAdder();
+	private final static LongAdder NODES = new LongAdder();
+	private final static LongAdder FILES_READ = new LongAdder();
+	private final static LongAdder FILES_WRITTEN = new LongAdder();
+	private final static LongAdder LINES = new LongAdder();
+
+	private final static Histogram MOVE_LATENCY = new Histogram();
+	private final static Histogram SEARCH_LATENCY = new Histogram();
+	private final static Histogram FILE_LATENCY = new Histogram();
+
+	private Metrics() {
+	}
+
+	@Name("LogicGame.Move")
+	@Label("Move")
+	@Category("Checkers")
+	@Description("A move played on a ChessBoard")
+	static class MoveEvent extends Event {
+		@Label("Move")
+		String move;
+		@Label("Captured pieces")
+		int captured;
+		@Label("Legal moves")
+		int legal;
+		@Label("Allocated")
+		@DataAmount
+		long allocated;
+		@Label("Rejected")
+		boolean rejected;
+	}
+
+	@Name("LogicGame.Search")
+	@Label("Search")
+	@Category("Checkers")
+	@Description("A search of the engine")
+	static class SearchEvent extends Event {
+		@Label("Nodes")
+		long nodes;
+		@Label("Moves generated")
+		long generated;
+		@Label("Depth")
+		int depth;
+		@Label("Score")
+		int score;
+	}
+
+	@Name("LogicGame.GameFile")
+	@Label("Game file")
+	@Category("Checkers")
+	@Description("A game file read or written by CheckersIO")
+	static class GameFileEvent extends Event {
+		@Label("Written")
+		boolean written;
+		@Label("Lines")
+		int lines;
+	}
+
+   /**
+    * Latency histogram with one bucket per power of two nanoseconds.
+    */
+	static class Histogram {
+		private final static int BUCKETS = 64;
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		void record(long nanos) {
+			counts.incrementAndGet(BUCKETS - 1 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+		}
+
+		long count() {
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				total += counts.get(i);
+			}
+			return total;
+		}
+
+		// Upper bound of the bucket holding the percentile, in nanoseconds
+		long percentile(double fraction) {
+			long total = count();
+			long rank = (long) Math.ceil(total * fraction);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts.get(i);
+				if (seen >= rank && seen > 0) {
+					return i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+				}
+			}
+			return 0;
+		}
+
+		void reset() {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts.set(i, 0);
+			}
+		}
+
+		String describe() {
+			return String.format("n %d, p50 %s, p99 %s, max %s", count(), time(percentile(0.5)),
+					time(percentile(0.99)), time(percentile(1)));
+		}
+
+		private static String time(long nanos) {
+			if (nanos < 10000) {
+				return nanos + " ns";
+			}
+			if (nanos < 10000000) {
+				return nanos / 1000 + " us";
+			}
+			return nanos / 1000000 + " ms";
+		}
+	}
+
+   /**
+    * Returns the bytes allocated by the current thread so far, or -1 when
+    * the JVM does not measure it.
+    */
+	static long allocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	static void recordMove(long nanos, long allocated) {
+		MOVES.increment();
+		if (allocated > 0) {
+			ALLOCATED_BYTES.add(allocated);
+		}
+		MOVE_LATENCY.record(nanos);
+	}
+
+	static void recordIllegalMove(long nanos) {
+		ILLEGAL_MOVES.increment();
+		MOVE_LATENCY.record(nanos);
+	}
+
+	static void recordGenerated(int generated) {
+		MOVES_GENERATED.add(generated);
+	}
+
+	static void recordSearch(long nanos, long nodes, long generated) {
+		SEARCHES.increment();
+		NODES.add(nodes);
+		MOVES_GENERATED.add(generated);
+		SEARCH_LATENCY.record(nanos);
+	}
+
+	static void recordFile(long nanos, int lines, boolean written) {
+		(written ? FILES_WRITTEN : FILES_READ).increment();
+		LINES.add(lines);
+		FILE_LATENCY.record(nanos);
+	}
+
+   /**
+    * Returns the metrics gathered since the start or the last reset, as
+    * a report of one line per metric.
+    * @return String  the report.
+    */
+	public static String snapshot() {
+		String NL = System.getProperty("line.separator");
+		long moves = MOVES.sum();
+		StringBuilder sb = new StringBuilder();
+		sb.append("Moves played       : ").append(moves).append(" (").append(ILLEGAL_MOVES.sum())
+				.append(" rejected)").append(NL);
+		sb.append("Move latency       : ").append(MOVE_LATENCY.describe()).append(NL);
+		sb.append("Allocated per move : ")
+				.append(THREADS == null ? "not measured" : (moves == 0 ? 0 : ALLOCATED_BYTES.sum() / moves) + " bytes")
+				.append(NL);
+		sb.append("Moves generated    : ").append(MOVES_GENERATED.sum()).append(NL);
+		sb.append("Move cache         : ").append(MoveCache.SHARED.getHits()).append(" hits, ")
+				.append(MoveCache.SHARED.getMisses()).append(" misses").append(NL);
+		sb.append("Searches           : ").append(SEARCHES.sum()).append(", ").append(NODES.sum())
+				.append(" nodes").append(NL);
+		sb.append("Search latency     : ").append(SEARCH_LATENCY.describe()).append(NL);
+		sb.append("Game files         : ").append(FILES_READ.sum()).append(" read, ")
+				.append(FILES_WRITTEN.sum()).append(" written, ").append(LINES.sum()).append(" lines").append(NL);
+		sb.append("File latency       : ").append(FILE_LATENCY.describe()).append(NL);
+		return sb.toString();
+	}
+
+	public static long getMoves() {
+		return MOVES.sum();
+	}
+
+	public static long getMovesGenerated() {
+		return MOVES_GENERATED.sum();
+	}
+
+	public static long getNodes() {
+		return NODES.sum();
+	}
+
+	public static long getMovePercentile(double fraction) {
+		return MOVE_LATENCY.percentile(fraction);
+	}
+
+	public static long getSearchPercentile(double fraction) {
+		return SEARCH_LATENCY.percentile(fraction);
+	}
+
+	public static void reset() {
+		MOVES.reset();
+		ILLEGAL_MOVES.reset();
+		MOVES_GENERATED.reset();
+		ALLOCATED_BYTES.reset();
+		SEARCHES.reset();
+		NODES.reset();
+		FILES_READ.reset();
+		FILES_WRITTEN.reset();
+		LINES.reset();
+		MOVE_LATENCY.reset();
+		SEARCH_LATENCY.reset();
+		FILE_LATENCY.reset();
+	}
+
+	private static com.sun.management.ThreadMXBean threads() {
+		try {
+			com.sun.management.ThreadMXBean threads =
+					(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (threads.isThreadAllocatedMemorySupported()) {
+				threads.setThreadAllocatedMemoryEnabled(true);
+				return threads;
+			}
+		} catch (ClassCastException | UnsupportedOperationException e) {
+			// Not a HotSpot JVM: the allocation is not measured
+		}
+		return null;
+	}
+}
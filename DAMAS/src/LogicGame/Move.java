@@ -0,0 +1,151 @@
+package LogicGame;
+
+/**
+ * Packed representation of a move. A move is a single long so it can be
+ * stored in primitive buffers without any allocation:
+ * <pre>
+ *  bits  0-4   origin square (0..31)
+ *  bits  5-9   destination square (0..31)
+ *  bit   10    promotion flag
+ *  bits 32-63  mask of the captured squares
+ * </pre>
+ *
+ * @version 1.0
+ */
+public final class Move {
+
+	public final static long NONE = 0;
+
+	private final static int SQUARE_MASK = 0x1F;
+	private final static int TO_SHIFT = 5;
+	private final static long PROMOTION = 1L << 10;
+
+	/** Most squares a move can go through: its origin and a landing per capture. */
+	public final static int MAX_PATH = Position.SQUARES;
+
+	private Move() {
+	}
+
+	public static long create(int from, int to, int captured, boolean promotion) {
+		long move = from | (to << TO_SHIFT) | ((long) captured << 32);
+		return promotion ? move | PROMOTION : move;
+	}
+
+	public static int from(long move) {
+		return (int) move & SQUARE_MASK;
+	}
+
+	public static int to(long move) {
+		return (int) (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	public static int captured(long move) {
+		return (int) (move >>> 32);
+	}
+
+	public static boolean isCapture(long move) {
+		return (move >>> 32) != 0;
+	}
+
+	public static boolean isPromotion(long move) {
+		return (move & PROMOTION) != 0;
+	}
+
+   /**
+    * Finds the legal move written in "a3 b4" notation. A capture that
+    * shares its origin and destination with another one is written with
+    * its landing squares, like "a3xc5xe7"; squares may be separated by
+    * spaces, 'x' or '-'.
+    * @param position  the position the move is played on.
+    * @param text  the move, origin first and destination last.
+    * @param moves  buffer used to generate the legal moves when they are
+    *               not in the MoveCache.
+    * @param path  buffer of MAX_PATH squares receiving the squares read.
+    * @return long  the packed move, or NONE if the text is not a legal
+    *               move or could be more than one.
+    */
+	public static long parse(Position position, String text, long[] moves, int[] path) {
+		int length = squares(text, path);
+		if (length < 2) {
+			return NONE;
+		}
+		for (int i = 0; i < length; i++) {
+			if (path[i] == Position.NO_SQUARE) {
+				return NONE;
+			}
+		}
+		return MoveCache.SHARED.get(position, moves).find(path, length);
+	}
+
+   /**
+    * Reads the squares of a move written in "a3 b4" or "a3xc5xe7"
+    * notation, up to the first character that belongs to neither.
+    * @param text  the move.
+    * @param path  receives the squares, at most MAX_PATH, and
+    *              Position.NO_SQUARE for a light one.
+    * @return int  the number of squares read.
+    */
+	public static int squares(String text, int[] path) {
+		int length = 0;
+		int i = 0;
+		while (length < path.length) {
+			while (i < text.length() && isSeparator(text.charAt(i))) {
+				i++;
+			}
+			if (!isSquare(text, i)) {
+				break;
+			}
+			path[length++] = Position.square(Character.toLowerCase(text.charAt(i)) - 'a', text.charAt(i + 1) - '1');
+			i += 2;
+		}
+		return length;
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ' ' || c == 'x' || c == 'X' || c == '-';
+	}
+
+	private static boolean isSquare(String text, int i) {
+		if (i + 1 >= text.length()) {
+			return false;
+		}
+		char file = Character.toLowerCase(text.charAt(i));
+		char rank = text.charAt(i + 1);
+		return file >= 'a' && file <= 'h' && rank >= '1' && rank <= '8';
+	}
+
+   /**
+    * Returns the move in the "a3 b4" notation used by the console and files.
+    * @param move  a packed move.
+    * @return String  the origin and destination separated by a space.
+    */
+	public static String toString(long move) {
+		return Position.squareName(from(move)) + " " + Position.squareName(to(move));
+	}
+
+   /**
+    * Returns the move in the notation parse reads back as this very move:
+    * "a3 b4", or every landing square, like "a3xc5xe7", when another
+    * capture has the same origin and destination.
+    * @param position  the position the move is played on.
+    * @param move  a packed move generated for this position.
+    * @param moves  buffer used to generate the legal moves when they are
+    *               not in the MoveCache.
+    * @return String  the move.
+    */
+	public static String toString(Position position, long move, long[] moves) {
+		if (MoveCache.SHARED.get(position, moves).count(from(move), to(move)) <= 1) {
+			return toString(move);
+		}
+		int[] path = new int[MAX_PATH];
+		int length = MoveGenerator.path(position, move, path);
+		StringBuilder sb = new StringBuilder(3 * length);
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				sb.append('x');
+			}
+			sb.append(Position.squareName(path[i]));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,282 @@
+package LogicGame;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the legal moves of positions, keyed by their Zobrist
+ * hash. Checking a typed or stored move against a cached position is a
+ * binary search on origin and destination instead of a new generation.
+ *
+ * Every entry keeps the position it was generated for and is only used
+ * for that same position, so two positions sharing a hash key never mix
+ * their moves. The cache is split into segments, each one a synchronized
+ * LinkedHashMap in access order that drops its least recently used entry
+ * when full, so threads replaying different games rarely wait for each
+ * other.
+ *
+ * In front of the segments a direct-mapped table keeps the last entry
+ * found for each slot of the hash. A hit there takes no lock and boxes no
+ * key, so checking a move allocates nothing; entries are never changed
+ * once made, so a thread reading a slot another one is writing sees
+ * either entry whole.
+ *
+ * @version 1.0
+ */
+public class MoveCache {
+
+	public final static int DEFAULT_CAPACITY = 1 << 16;
+	private final static int SEGMENTS = 64;
+
+   /**
+    * Cache shared by every ChessBoard and by Move.parse.
+    */
+	public final static MoveCache SHARED = new MoveCache(DEFAULT_CAPACITY);
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final Entry[] recent;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+   /**
+    * The legal moves of one position.
+    */
+	public static class Entry {
+		final int white;
+		final int black;
+		final int kings;
+		final boolean sideToMove;
+		// Moves in generation order, and their origin and destination sorted
+		final long[] moves;
+		private final int[] keys;
+		private final byte[] order;
+
+		Entry(Position position, long[] generated, int count) {
+			white = position.getWhite();
+			black = position.getBlack();
+			kings = position.getKings();
+			sideToMove = position.getSideToMove();
+			moves = Arrays.copyOf(generated, count);
+			// A key holds origin, destination and the generation index, so
+			// moves with the same ends are sorted next to each other
+			keys = new int[count];
+			for (int i = 0; i < count; i++) {
+				keys[i] = key(Move.from(moves[i]), Move.to(moves[i])) << 8 | i;
+			}
+			Arrays.sort(keys);
+			order = new byte[count];
+			for (int i = 0; i < count; i++) {
+				order[i] = (byte) keys[i];
+				keys[i] >>>= 8;
+			}
+		}
+
+		boolean matches(Position position) {
+			return white == position.getWhite() && black == position.getBlack()
+					&& kings == position.getKings() && sideToMove == position.getSideToMove();
+		}
+
+	   /**
+	    * Returns the legal move going from a square to another one, when
+	    * there is only one.
+	    * @param from  the origin square.
+	    * @param to  the destination square.
+	    * @return long  the packed move, or Move.NONE if there is none or
+	    *               several captures share these squares.
+	    */
+		public long find(int from, int to) {
+			int first = first(key(from, to));
+			if (first == keys.length || keys[first] != key(from, to)
+					|| (first + 1 < keys.length && keys[first + 1] == keys[first])) {
+				return Move.NONE;
+			}
+			return moves[order[first] & 0xFF];
+		}
+
+	   /**
+	    * Returns the legal move going through the given squares. Captures
+	    * sharing their origin and destination are told apart by the pieces
+	    * jumped between the landing squares: the move jumping exactly those
+	    * is taken, or else, when landing squares are given, the only one
+	    * jumping all of them.
+	    * @param path  the origin, any landing squares and the destination.
+	    * @param length  the number of squares of the path, at least 2.
+	    * @return long  the packed move, or Move.NONE if no move or more
+	    *               than one goes through these squares.
+	    */
+		public long find(int[] path, int length) {
+			int from = path[0];
+			int to = path[length - 1];
+			if (from == Position.NO_SQUARE || to == Position.NO_SQUARE) {
+				return Move.NONE;
+			}
+			if (length == 2) {
+				long move = find(from, to);
+				if (move != Move.NONE) {
+					return move;
+				}
+			}
+			int captured = MoveGenerator.capturedAlong(white | black, path, length);
+			if (captured == 0) {
+				return Move.NONE;
+			}
+			int key = key(from, to);
+			long found = Move.NONE;
+			int matches = 0;
+			for (int i = first(key); i < keys.length && keys[i] == key; i++) {
+				long move = moves[order[i] & 0xFF];
+				if (Move.captured(move) == captured) {
+					return move;
+				}
+				if ((Move.captured(move) & captured) == captured) {
+					found = move;
+					matches++;
+				}
+			}
+			// Two squares alone only name the capture along their diagonal
+			return matches == 1 && length > 2 ? found : Move.NONE;
+		}
+
+	   /**
+	    * Returns how many legal moves go from a square to another one. It
+	    * is more than one only for captures jumping different pieces.
+	    * @param from  the origin square.
+	    * @param to  the destination square.
+	    * @return int  the number of legal moves.
+	    */
+		public int count(int from, int to) {
+			int key = key(from, to);
+			int count = 0;
+			for (int i = first(key); i < keys.length && keys[i] == key; i++) {
+				count++;
+			}
+			return count;
+		}
+
+		// Index of the first key not lower than 'key'
+		private int first(int key) {
+			int low = 0;
+			int high = keys.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (keys[middle] < key) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		public int size() {
+			return moves.length;
+		}
+
+		public long getMove(int i) {
+			return moves[i];
+		}
+
+	   /**
+	    * Tells whether the player to move must capture.
+	    */
+		public boolean isCaptureForced() {
+			return moves.length > 0 && Move.isCapture(moves[0]);
+		}
+
+		private static int key(int from, int to) {
+			return from << 5 | to;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class Segment extends LinkedHashMap<Long, Entry> {
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+			return size() > capacity;
+		}
+	}
+
+   /**
+    * Creates a cache.
+    * @param capacity  the number of positions kept.
+    */
+	public MoveCache(int capacity) {
+		recent = new Entry[Integer.highestOneBit(Math.max(1, capacity))];
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(Math.max(1, capacity / SEGMENTS));
+		}
+	}
+
+   /**
+    * Returns the legal moves of a position, generating them on a miss.
+    * @param position  the position, with its player to move.
+    * @param buffer  buffer used to generate the moves on a miss.
+    * @return Entry  the legal moves; the entry must not be changed.
+    */
+	public Entry get(Position position, long[] buffer) {
+		long key = position.getHash();
+		int slot = (int) key & (recent.length - 1);
+		Entry entry = recent[slot];
+		if (entry != null && entry.matches(position)) {
+			hits.increment();
+			return entry;
+		}
+		Segment segment = segments[(int) (key >>> 58) & (SEGMENTS - 1)];
+		synchronized (segment) {
+			entry = segment.get(key);
+		}
+		if (entry != null && entry.matches(position)) {
+			hits.increment();
+			recent[slot] = entry;
+			return entry;
+		}
+		misses.increment();
+		int count = MoveGenerator.generate(position, position.getSideToMove(), buffer);
+		Metrics.recordGenerated(count);
+		entry = new Entry(position, buffer, count);
+		synchronized (segment) {
+			segment.put(key, entry);
+		}
+		recent[slot] = entry;
+		return entry;
+	}
+
+   /**
+    * Returns the legal move of a position going from a square to another
+    * one, when there is only one.
+    * @param position  the position, with its player to move.
+    * @param from  the origin square.
+    * @param to  the destination square.
+    * @param buffer  buffer used to generate the moves on a miss.
+    * @return long  the packed move, or Move.NONE if there is none or
+    *               several captures share these squares.
+    */
+	public long find(Position position, int from, int to, long[] buffer) {
+		return get(position, buffer).find(from, to);
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public void clear() {
+		Arrays.fill(recent, null);
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+}
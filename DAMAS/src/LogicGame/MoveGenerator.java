@@ -0,0 +1,319 @@
+package LogicGame;
+
+/**
+ * Move generator working directly on a Position. Moves are written as
+ * packed longs (see Move) into a buffer owned by the caller, so generating
+ * moves does not allocate anything.
+ *
+ * @version 1.0
+ */
+public final class MoveGenerator {
+
+	/** Size of a buffer able to hold the moves of any position. */
+	public final static int MAX_MOVES = 256;
+
+	public final static int UP_LEFT = 0;
+	public final static int UP_RIGHT = 1;
+	public final static int DOWN_LEFT = 2;
+	public final static int DOWN_RIGHT = 3;
+
+	// NEIGHBOUR[dir][sq] is the adjacent square in that direction, JUMP[dir][sq]
+	// the square behind it, or Position.NO_SQUARE when it is off the board
+	final static int[][] NEIGHBOUR = new int[4][Position.SQUARES];
+	final static int[][] JUMP = new int[4][Position.SQUARES];
+	// RAY[dir][sq] holds every square seen from 'sq' along a diagonal. Rays
+	// going up only contain higher squares and rays going down lower ones,
+	// so the nearest piece on a ray is its lowest or highest bit.
+	final static int[][] RAY = new int[4][Position.SQUARES];
+
+	private final static int[] COL_STEP = { -1, 1, -1, 1 };
+	private final static int[] ROW_STEP = { 1, 1, -1, -1 };
+
+	static {
+		for (int dir = 0; dir < 4; dir++) {
+			for (int sq = 0; sq < Position.SQUARES; sq++) {
+				int col = Position.col(sq);
+				int row = Position.row(sq);
+				NEIGHBOUR[dir][sq] = Position.square(col + COL_STEP[dir], row + ROW_STEP[dir]);
+				JUMP[dir][sq] = Position.square(col + 2 * COL_STEP[dir], row + 2 * ROW_STEP[dir]);
+				for (int to = NEIGHBOUR[dir][sq]; to != Position.NO_SQUARE; ) {
+					RAY[dir][sq] |= 1 << to;
+					to = Position.square(Position.col(to) + COL_STEP[dir], Position.row(to) + ROW_STEP[dir]);
+				}
+			}
+		}
+	}
+
+	private MoveGenerator() {
+	}
+
+   /**
+    * Generates the legal moves of a player. Capturing is mandatory, so
+    * when any piece can capture only the captures are generated. A capture
+    * is the whole jump sequence, removing every piece it jumps over.
+    * @param position  the position to look at.
+    * @param colour  the player to move.
+    * @param moves  buffer receiving the packed moves.
+    * @return int  the number of moves written into the buffer.
+    */
+	public static int generate(Position position, boolean colour, long[] moves) {
+		int count = generateCaptures(position, colour, moves);
+		if (count > 0) {
+			return count;
+		}
+		int empty = position.getEmpty();
+		int pieces = position.getPieces(colour) & ~position.getKings();
+		int first = colour == Piece.WHITE ? UP_LEFT : DOWN_LEFT;
+		while (pieces != 0) {
+			int sq = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			for (int dir = first; dir < first + 2; dir++) {
+				int to = NEIGHBOUR[dir][sq];
+				if (to != Position.NO_SQUARE && (empty & (1 << to)) != 0) {
+					moves[count++] = Move.create(sq, to, 0, isPromotionSquare(to, colour));
+				}
+			}
+		}
+		int kings = position.getPieces(colour) & position.getKings();
+		int occupied = position.getOccupied();
+		while (kings != 0) {
+			int sq = Integer.numberOfTrailingZeros(kings);
+			kings &= kings - 1;
+			int targets = 0;
+			for (int dir = 0; dir < 4; dir++) {
+				targets |= freeRay(dir, sq, occupied);
+			}
+			while (targets != 0) {
+				moves[count++] = Move.create(sq, Integer.numberOfTrailingZeros(targets), 0, false);
+				targets &= targets - 1;
+			}
+		}
+		return count;
+	}
+
+   /**
+    * Generates only the captures of a player.
+    * @param position  the position to look at.
+    * @param colour  the player to move.
+    * @param moves  buffer receiving the packed moves.
+    * @return int  the number of moves written into the buffer.
+    */
+	public static int generateCaptures(Position position, boolean colour, long[] moves) {
+		int count = 0;
+		int opponent = position.getPieces(!colour);
+		int pieces = position.getPieces(colour) & ~position.getKings();
+		while (pieces != 0) {
+			int sq = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			int empty = position.getEmpty() | (1 << sq);
+			count = manCaptures(sq, sq, colour, opponent, empty, 0, moves, count);
+		}
+		int kings = position.getPieces(colour) & position.getKings();
+		while (kings != 0) {
+			int sq = Integer.numberOfTrailingZeros(kings);
+			kings &= kings - 1;
+			int occupied = position.getOccupied() & ~(1 << sq);
+			count = kingCaptures(sq, sq, opponent, occupied, 0, moves, count);
+		}
+		return count;
+	}
+
+   /**
+    * Generates the legal moves of the piece standing on one square. The
+    * moves of the other pieces are taken into account, so nothing is
+    * returned when another piece of the same player has to capture.
+    * @param position  the position to look at.
+    * @param square  the square of the piece.
+    * @param moves  buffer receiving the packed moves.
+    * @return int  the number of moves written into the buffer.
+    */
+	public static int generate(Position position, int square, long[] moves) {
+		if (square == Position.NO_SQUARE || position.isEmpty(square)) {
+			return 0;
+		}
+		int count = generate(position, position.isWhite(square), moves);
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			if (Move.from(moves[i]) == square) {
+				moves[kept++] = moves[i];
+			}
+		}
+		return kept;
+	}
+
+	// Extends a jump sequence of a man from 'sq'. Jumped pieces stay on the
+	// board until the move ends, so they can neither be jumped twice nor
+	// be landed on.
+	private static int manCaptures(int from, int sq, boolean colour, int opponent, int empty,
+			int captured, long[] moves, int count) {
+		boolean extended = false;
+		if (captured == 0 || !isPromotionSquare(sq, colour)) {
+			int first = colour == Piece.WHITE ? UP_LEFT : DOWN_LEFT;
+			for (int dir = first; dir < first + 2; dir++) {
+				int over = NEIGHBOUR[dir][sq];
+				int landing = JUMP[dir][sq];
+				if (landing == Position.NO_SQUARE || (opponent & ~captured & (1 << over)) == 0
+						|| (empty & (1 << landing)) == 0) {
+					continue;
+				}
+				extended = true;
+				count = manCaptures(from, landing, colour, opponent, empty, captured | (1 << over),
+						moves, count);
+			}
+		}
+		if (!extended && captured != 0) {
+			count = addCapture(moves, count, Move.create(from, sq, captured, isPromotionSquare(sq, colour)));
+		}
+		return count;
+	}
+
+	// Extends a jump sequence of a flying king from 'sq'. The king jumps the
+	// first piece met on a diagonal and may land on any free square behind it.
+	private static int kingCaptures(int from, int sq, int opponent, int occupied, int captured,
+			long[] moves, int count) {
+		boolean extended = false;
+		for (int dir = 0; dir < 4; dir++) {
+			int blocker = nearest(dir, RAY[dir][sq] & occupied);
+			if (blocker == Position.NO_SQUARE || (opponent & ~captured & (1 << blocker)) == 0) {
+				continue;
+			}
+			int landings = freeRay(dir, blocker, occupied);
+			while (landings != 0) {
+				int landing = Integer.numberOfTrailingZeros(landings);
+				landings &= landings - 1;
+				extended = true;
+				count = kingCaptures(from, landing, opponent, occupied, captured | (1 << blocker),
+						moves, count);
+			}
+		}
+		if (!extended && captured != 0) {
+			count = addCapture(moves, count, Move.create(from, sq, captured, false));
+		}
+		return count;
+	}
+
+	// Empty squares seen from 'sq' along a diagonal, up to the first piece
+	private static int freeRay(int dir, int sq, int occupied) {
+		int ray = RAY[dir][sq];
+		int blocker = nearest(dir, ray & occupied);
+		if (blocker == Position.NO_SQUARE) {
+			return ray;
+		}
+		return ray & ~(RAY[dir][blocker] | (1 << blocker));
+	}
+
+   /**
+    * Returns the pieces jumped by a capture going through the given
+    * landing squares, the origin first: on each leg, every piece between
+    * two landing squares of a diagonal.
+    * @param occupied  the squares holding a piece.
+    * @param path  the origin, the landing squares and the destination.
+    * @param length  the number of squares of the path.
+    * @return int  the mask of the jumped squares, 0 if a leg is not diagonal.
+    */
+	static int capturedAlong(int occupied, int[] path, int length) {
+		int captured = 0;
+		int pieces = occupied & ~(1 << path[0]);
+		for (int i = 0; i + 1 < length; i++) {
+			int from = path[i];
+			int to = path[i + 1];
+			if (from == Position.NO_SQUARE || to == Position.NO_SQUARE) {
+				return 0;
+			}
+			for (int dir = 0; dir < 4; dir++) {
+				int ray = RAY[dir][from];
+				if ((ray & (1 << to)) != 0) {
+					captured |= ray & ~RAY[dir][to] & ~(1 << to) & pieces;
+				}
+			}
+		}
+		return captured;
+	}
+
+   /**
+    * Finds the landing squares of a capture, so it can be written down
+    * when another capture has the same origin and destination.
+    * @param position  the position the capture is played on.
+    * @param move  a packed capture generated for this position.
+    * @param path  receives the origin, the landing squares and the destination.
+    * @return int  the number of squares written into path.
+    */
+	static int path(Position position, long move, int[] path) {
+		int from = Move.from(move);
+		path[0] = from;
+		int length = extendPath(from, position.isKing(from), position.isWhite(from),
+				position.getOccupied() & ~(1 << from), Move.captured(move), Move.to(move), path, 1);
+		if (length == 0) {
+			// Not a capture: the origin and destination are all there is
+			path[1] = Move.to(move);
+			return 2;
+		}
+		return length;
+	}
+
+	// Looks for jumps from path[length - 1] taking exactly 'remaining' and
+	// ending on 'to'; returns the length of the path found or 0
+	private static int extendPath(int sq, boolean king, boolean colour, int occupied, int remaining,
+			int to, int[] path, int length) {
+		if (remaining == 0) {
+			return length > 1 && sq == to ? length : 0;
+		}
+		if (!king && length > 1 && isPromotionSquare(sq, colour)) {
+			return 0;
+		}
+		int first = king ? 0 : colour == Piece.WHITE ? UP_LEFT : DOWN_LEFT;
+		int last = king ? 4 : first + 2;
+		for (int dir = first; dir < last; dir++) {
+			int over;
+			int landings;
+			if (king) {
+				over = nearest(dir, RAY[dir][sq] & occupied);
+				landings = over == Position.NO_SQUARE ? 0 : freeRay(dir, over, occupied);
+			} else {
+				over = NEIGHBOUR[dir][sq];
+				int landing = JUMP[dir][sq];
+				landings = landing == Position.NO_SQUARE || (occupied & (1 << landing)) != 0 ? 0 : 1 << landing;
+			}
+			if (over == Position.NO_SQUARE || (remaining & (1 << over)) == 0) {
+				continue;
+			}
+			while (landings != 0) {
+				int landing = Integer.numberOfTrailingZeros(landings);
+				landings &= landings - 1;
+				path[length] = landing;
+				int found = extendPath(landing, king, colour, occupied, remaining & ~(1 << over), to,
+						path, length + 1);
+				if (found != 0) {
+					return found;
+				}
+			}
+		}
+		return 0;
+	}
+
+	// Nearest square of a set of squares lying on one ray
+	private static int nearest(int dir, int squares) {
+		if (squares == 0) {
+			return Position.NO_SQUARE;
+		}
+		if (dir == UP_LEFT || dir == UP_RIGHT) {
+			return Integer.numberOfTrailingZeros(squares);
+		}
+		return 31 - Integer.numberOfLeadingZeros(squares);
+	}
+
+	// Different jump orders can end in the same move, which is only kept once
+	private static int addCapture(long[] moves, int count, long move) {
+		for (int i = 0; i < count; i++) {
+			if (moves[i] == move) {
+				return count;
+			}
+		}
+		moves[count] = move;
+		return count + 1;
+	}
+
+	static boolean isPromotionSquare(int square, boolean colour) {
+		return Position.row(square) == (colour == Piece.WHITE ? ChessBoard.ROWS - 1 : 0);
+	}
+}
@@ -0,0 +1,269 @@
+package LogicGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Weights of a small neural evaluation network, efficiently updatable in
+ * the NNUE way. The input is one feature per kind of piece on each square
+ * (4 x 32), seen from both players: the first layer is a sum of weight
+ * columns, so an Accumulator keeps it up to date by adding and removing the
+ * columns of the pieces a move changes, and only the small dense layers
+ * behind it run at every evaluation.
+ * <pre>
+ *  128 features x 2 players -> HIDDEN (x 2) -> L1 -> L2 -> 1
+ * </pre>
+ * The first layer is made of integers scaled by ONE, so the accumulator
+ * never drifts however many moves it follows; it is clipped to 0..ONE and
+ * fed, the player to move first, to float layers clipped to 0..1. The
+ * output is the score for the player to move, in hundredths of a man.
+ *
+ * A network is never modified once loaded, so all the threads of a
+ * program can share it.
+ *
+ * The dense layers run on the Vector API, see VectorDense, when the JVM
+ * is started with --add-modules jdk.incubator.vector, and on plain loops
+ * giving the same scores otherwise. The sources are compiled with that
+ * module.
+ *
+ * File format (big endian):
+ * <pre>
+ *  int    MAGIC
+ *  int    HIDDEN, int L1, int L2
+ *  short  FEATURES x HIDDEN feature weights, by feature
+ *  short  HIDDEN feature biases
+ *  float  2 HIDDEN x L1 weights, by input, and L1 biases
+ *  float  L1 x L2 weights, by input, and L2 biases
+ *  float  L2 output weights and the output bias
+ * </pre>
+ *
+ * Run it as a program to write a network with random weights, as a
+ * starting point for training: java LogicGame.Network file [hidden] [seed]
+ *
+ * @version 1.0
+ */
+public final class Network {
+
+	final static int MAGIC = 0x444E4E31;
+
+	/** Number of input features: 4 kinds of piece on 32 squares. */
+	public final static int FEATURES = 4 * Position.SQUARES;
+	/** Value of an active neuron of the first layer. */
+	public final static int ONE = 255;
+
+	public final static int DEFAULT_HIDDEN = 64;
+	public final static int DEFAULT_L1 = 32;
+	public final static int DEFAULT_L2 = 32;
+
+	// The dense layers run on the Vector API when the JVM was started with
+	// --add-modules jdk.incubator.vector, and on plain loops otherwise
+	final static boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	final int hidden;
+	final int l1;
+	final int l2;
+	final short[] featureWeights;
+	final short[] featureBiases;
+	final float[] weights1;
+	final float[] biases1;
+	final float[] weights2;
+	final float[] biases2;
+	final float[] outputWeights;
+	final float outputBias;
+
+	private Network(ByteBuffer in) throws IOException {
+		if (in.remaining() < 16 || in.getInt() != MAGIC) {
+			throw new IOException("Not a network file");
+		}
+		hidden = in.getInt();
+		l1 = in.getInt();
+		l2 = in.getInt();
+		if (hidden <= 0 || l1 <= 0 || l2 <= 0 || in.remaining() != bytes(hidden, l1, l2) - 16) {
+			throw new IOException("Network file has a wrong size");
+		}
+		featureWeights = new short[FEATURES * hidden];
+		featureBiases = new short[hidden];
+		in.asShortBuffer().get(featureWeights);
+		in.position(in.position() + featureWeights.length * 2);
+		in.asShortBuffer().get(featureBiases);
+		in.position(in.position() + featureBiases.length * 2);
+		weights1 = floats(in, 2 * hidden * l1);
+		biases1 = floats(in, l1);
+		weights2 = floats(in, l1 * l2);
+		biases2 = floats(in, l2);
+		outputWeights = floats(in, l2);
+		outputBias = in.getFloat();
+	}
+
+	private Network(int hidden, int l1, int l2, Random random) {
+		this.hidden = hidden;
+		this.l1 = l1;
+		this.l2 = l2;
+		featureWeights = new short[FEATURES * hidden];
+		featureBiases = new short[hidden];
+		for (int i = 0; i < featureWeights.length; i++) {
+			featureWeights[i] = (short) (random.nextGaussian() * ONE / 8);
+		}
+		for (int i = 0; i < hidden; i++) {
+			featureBiases[i] = (short) (ONE / 2);
+		}
+		weights1 = gaussian(random, 2 * hidden * l1, 1 / Math.sqrt(2 * hidden));
+		biases1 = new float[l1];
+		weights2 = gaussian(random, l1 * l2, 1 / Math.sqrt(l1));
+		biases2 = new float[l2];
+		outputWeights = gaussian(random, l2, Evaluation.MAN_VALUE / Math.sqrt(l2));
+		outputBias = 0;
+	}
+
+   /**
+    * Reads a network file.
+    * @param file  the path of the file.
+    * @return Network  the network.
+    * @exception IOException if the file cannot be read or is not a network.
+    */
+	public static Network load(String file) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Network file is too large");
+			}
+			ByteBuffer in = ByteBuffer.allocate((int) size);
+			while (in.hasRemaining() && channel.read(in) >= 0) {
+				// Read the whole file
+			}
+			in.flip();
+			return new Network(in);
+		}
+	}
+
+   /**
+    * Builds a network with random weights.
+    * @param hidden  the number of neurons of the first layer, per player.
+    * @param seed  the seed of the weights.
+    * @return Network  the network.
+    */
+	public static Network random(int hidden, long seed) {
+		return new Network(hidden, DEFAULT_L1, DEFAULT_L2, new Random(seed));
+	}
+
+   /**
+    * Writes the network in the format read by load.
+    * @param file  the path of the file.
+    * @exception IOException if the file cannot be written.
+    */
+	public void write(String file) throws IOException {
+		ByteBuffer out = ByteBuffer.allocate(bytes(hidden, l1, l2));
+		out.putInt(MAGIC).putInt(hidden).putInt(l1).putInt(l2);
+		for (short weight : featureWeights) {
+			out.putShort(weight);
+		}
+		for (short bias : featureBiases) {
+			out.putShort(bias);
+		}
+		for (float[] layer : new float[][] { weights1, biases1, weights2, biases2, outputWeights }) {
+			for (float weight : layer) {
+				out.putFloat(weight);
+			}
+		}
+		out.putFloat(outputBias);
+		out.flip();
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+
+	public int getHidden() {
+		return hidden;
+	}
+
+   /**
+    * Runs the dense layers on an accumulator.
+    * @param values  the first layer of both players, HIDDEN values each.
+    * @param us  offset of the first layer seen by the player to move.
+    * @param them  offset of the first layer seen by the other player.
+    * @param input  buffer of 2 x HIDDEN floats.
+    * @param hidden1  buffer of L1 floats.
+    * @param hidden2  buffer of L2 floats.
+    * @return int  the score for the player to move.
+    */
+	int forward(int[] values, int us, int them, float[] input, float[] hidden1, float[] hidden2) {
+		float scale = 1f / ONE;
+		for (int i = 0; i < hidden; i++) {
+			input[i] = Math.min(Math.max(values[us + i], 0), ONE) * scale;
+			input[hidden + i] = Math.min(Math.max(values[them + i], 0), ONE) * scale;
+		}
+		if (VECTOR) {
+			VectorDense.dense(weights1, biases1, input, 2 * hidden, hidden1, l1);
+			VectorDense.dense(weights2, biases2, hidden1, l1, hidden2, l2);
+		} else {
+			dense(weights1, biases1, input, 2 * hidden, hidden1, l1);
+			dense(weights2, biases2, hidden1, l1, hidden2, l2);
+		}
+		float output = outputBias;
+		for (int i = 0; i < l2; i++) {
+			output += outputWeights[i] * hidden2[i];
+		}
+		return Math.round(output);
+	}
+
+	// One layer clipped to 0..1. The weights are stored by input, so each
+	// input adds a contiguous row to the outputs, a loop without any
+	// reduction, and the inputs left at 0 by the clipping are skipped.
+	private static void dense(float[] weights, float[] biases, float[] in, int inputs, float[] out, int outputs) {
+		System.arraycopy(biases, 0, out, 0, outputs);
+		for (int i = 0; i < inputs; i++) {
+			float value = in[i];
+			if (value == 0f) {
+				continue;
+			}
+			int row = i * outputs;
+			for (int o = 0; o < outputs; o++) {
+				out[o] += weights[row + o] * value;
+			}
+		}
+		for (int o = 0; o < outputs; o++) {
+			out[o] = Math.min(Math.max(out[o], 0f), 1f);
+		}
+	}
+
+	private static int bytes(int hidden, int l1, int l2) {
+		return 16 + 2 * (FEATURES * hidden + hidden)
+				+ 4 * (l1 * 2 * hidden + l1 + l2 * l1 + l2 + l2 + 1);
+	}
+
+	private static float[] floats(ByteBuffer in, int length) {
+		float[] values = new float[length];
+		in.asFloatBuffer().get(values);
+		in.position(in.position() + length * 4);
+		return values;
+	}
+
+	private static float[] gaussian(Random random, int length, double deviation) {
+		float[] values = new float[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = (float) (random.nextGaussian() * deviation);
+		}
+		return values;
+	}
+
+   /**
+    * Writes a network with random weights.
+    * @param args  the file, then optionally the hidden size and the seed.
+    */
+	public static void main(String args[]) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: java LogicGame.Network file [hidden] [seed]");
+			return;
+		}
+		int hidden = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HIDDEN;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		random(hidden, seed).write(args[0]);
+	}
+}
@@ -0,0 +1,169 @@
+package LogicGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Opening book written by OpeningBookCompiler. The file is memory-mapped
+ * and looked up with a binary search on the position key, so the book is
+ * never loaded onto the heap.
+ *
+ * File format (big endian): int MAGIC, int number of records, then the
+ * records sorted by position key and move:
+ * <pre>
+ *  long  Zobrist key of the position
+ *  long  packed move
+ *  int   games where the move was played
+ *  int   wins, draws and losses of the player who made the move
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class OpeningBook implements Closeable {
+
+	final static int MAGIC = 0x424F4F4B;
+	final static int HEADER_BYTES = 8;
+	final static int RECORD_BYTES = 32;
+
+	// Each buffer maps 2^25 records, 1 GB: a mapping holds less than 2 GB
+	// and 2^26 records of RECORD_BYTES would be 2 GB exactly
+	private final static int SEGMENT_SHIFT = 25;
+	private final static int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final int count;
+	private final long[] legal = new long[MoveGenerator.MAX_MOVES];
+
+	private OpeningBook(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		channel.read(header, 0);
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not an opening book");
+		}
+		count = header.getInt();
+		segments = new MappedByteBuffer[(count >>> SEGMENT_SHIFT) + 1];
+		for (int i = 0; i < segments.length; i++) {
+			long first = (long) i << SEGMENT_SHIFT;
+			long records = Math.min(count - first, 1L << SEGMENT_SHIFT);
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+					HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+		}
+	}
+
+   /**
+    * Opens an opening book file.
+    * @param file  the path of the file written by OpeningBookCompiler.
+    * @return OpeningBook  the book.
+    * @exception IOException if the file cannot be read or is not a book.
+    */
+	public static OpeningBook open(String file) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		try {
+			return new OpeningBook(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public int size() {
+		return count;
+	}
+
+   /**
+    * Returns the most played book move of a position.
+    * @param position  the position to look up.
+    * @return long  the packed move, or Move.NONE if the position is not in the book.
+    */
+	public synchronized long getMove(Position position) {
+		long best = Move.NONE;
+		int bestGames = 0;
+		int legalCount = MoveGenerator.generate(position, position.getSideToMove(), legal);
+		for (int i = first(position.getHash()); i < count && key(i) == position.getHash(); i++) {
+			long move = move(i);
+			if (games(i) > bestGames && isLegal(move, legalCount)) {
+				best = move;
+				bestGames = games(i);
+			}
+		}
+		return best;
+	}
+
+   /**
+    * Returns every book move of a position with how often it was played.
+    * @param position  the position to look up.
+    * @param moves  buffer receiving the packed moves.
+    * @param games  buffer receiving the number of games of each move.
+    * @return int  the number of moves written into the buffers.
+    */
+	public synchronized int getMoves(Position position, long[] moves, int[] games) {
+		int found = 0;
+		int legalCount = MoveGenerator.generate(position, position.getSideToMove(), legal);
+		for (int i = first(position.getHash()); i < count && key(i) == position.getHash()
+				&& found < moves.length; i++) {
+			if (isLegal(move(i), legalCount)) {
+				moves[found] = move(i);
+				games[found] = games(i);
+				found++;
+			}
+		}
+		return found;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// A different position with the same key would give moves that are not legal
+	private boolean isLegal(long move, int legalCount) {
+		for (int i = 0; i < legalCount; i++) {
+			if (legal[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Index of the first record of a key (binary search)
+	private int first(long key) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (key(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private long key(int record) {
+		return segment(record).getLong(offset(record));
+	}
+
+	private long move(int record) {
+		return segment(record).getLong(offset(record) + 8);
+	}
+
+	private int games(int record) {
+		return segment(record).getInt(offset(record) + 16);
+	}
+
+	private MappedByteBuffer segment(int record) {
+		return segments[record >>> SEGMENT_SHIFT];
+	}
+
+	private static int offset(int record) {
+		return (record & SEGMENT_MASK) * RECORD_BYTES;
+	}
+}
@@ -0,0 +1,199 @@
+package LogicGame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds an OpeningBook from game files in the "a3 b4" one move per line
+ * format read by CheckersIO. Every game is replayed from the initial
+ * position and, for the first plies, each position and the move played
+ * from it are counted together with the result of the game.
+ *
+ * A game is won by the player whose opponent has no move left at its end;
+ * a game that stops earlier counts as a draw. A game stops being counted
+ * at its first illegal move.
+ *
+ * Run it as a program: java LogicGame.OpeningBookCompiler [-plies=N] book input...
+ * where each input is a game file or a directory of game files.
+ *
+ * @version 1.0
+ */
+public class OpeningBookCompiler {
+
+	public final static int DEFAULT_PLIES = 30;
+
+	private final int plies;
+	private final HashMap<Long, ArrayList<Entry>> positions = new HashMap<Long, ArrayList<Entry>>();
+	private final Position position = new Position();
+	private final Position initial = new ChessBoard().getPosition();
+	private final long[] moveBuffer = new long[MoveGenerator.MAX_MOVES];
+	private final int[] path = new int[Move.MAX_PATH];
+	private final long[] keys = new long[Engine.MAX_PLY * 4];
+	private final long[] played = new long[Engine.MAX_PLY * 4];
+	private int games;
+
+	private static class Entry {
+		final long move;
+		int games;
+		int wins;
+		int draws;
+		int losses;
+
+		Entry(long move) {
+			this.move = move;
+		}
+	}
+
+	public OpeningBookCompiler(int plies) {
+		this.plies = Math.min(plies, keys.length);
+	}
+
+	public int getGames() {
+		return games;
+	}
+
+   /**
+    * Replays a game and adds its first plies to the book.
+    * @param moves  the moves of the game in "a3 b4" notation.
+    */
+	public void addGame(ArrayList<String> moves) {
+		position.copyFrom(initial);
+		int length = 0;
+		int ply = 0;
+		for (String text : moves) {
+			if (text.trim().isEmpty() || CheckersIO.getSnapshot(text) != null) {
+				continue;
+			}
+			long move = Move.parse(position, text, moveBuffer, path);
+			if (move == Move.NONE) {
+				break;
+			}
+			if (length < plies) {
+				keys[length] = position.getHash();
+				played[length] = move;
+				length++;
+			}
+			position.play(move);
+			ply++;
+		}
+
+		// Result from the point of view of the player who made the first move
+		int result = 0;
+		int state = position.getState();
+		if (state == Position.WHITE_WINS || state == Position.BLACK_WINS) {
+			result = ply % 2 == 1 ? 1 : -1;
+		}
+		for (int i = 0; i < length; i++) {
+			Entry entry = entry(keys[i], played[i]);
+			int forMover = i % 2 == 0 ? result : -result;
+			entry.games++;
+			if (forMover > 0) {
+				entry.wins++;
+			} else if (forMover < 0) {
+				entry.losses++;
+			} else {
+				entry.draws++;
+			}
+		}
+		games++;
+	}
+
+   /**
+    * Reads a game file, or every file of a directory, and adds the games.
+    * @param path  a game file or a directory of game files.
+    * @exception IOException if a file cannot be read.
+    */
+	public void addPath(File path) throws IOException {
+		if (path.isDirectory()) {
+			File[] files = path.listFiles();
+			Arrays.sort(files);
+			for (File file : files) {
+				addPath(file);
+			}
+		} else if (path.isFile()) {
+			CheckersIO io = new CheckersIO();
+			io.setInputFile(path.getPath());
+			addGame(io.read());
+		}
+	}
+
+   /**
+    * Writes the book, sorted by position key and move.
+    * @param file  the output file.
+    * @exception IOException if the file cannot be written.
+    */
+	public void write(String file) throws IOException {
+		long[] sorted = new long[positions.size()];
+		int n = 0;
+		int records = 0;
+		for (Map.Entry<Long, ArrayList<Entry>> e : positions.entrySet()) {
+			sorted[n++] = e.getKey();
+			records += e.getValue().size();
+		}
+		Arrays.sort(sorted);
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeInt(records);
+			for (long key : sorted) {
+				ArrayList<Entry> entries = positions.get(key);
+				entries.sort((a, b) -> Long.compare(a.move, b.move));
+				for (Entry entry : entries) {
+					out.writeLong(key);
+					out.writeLong(entry.move);
+					out.writeInt(entry.games);
+					out.writeInt(entry.wins);
+					out.writeInt(entry.draws);
+					out.writeInt(entry.losses);
+				}
+			}
+		}
+	}
+
+	private Entry entry(long key, long move) {
+		ArrayList<Entry> entries = positions.get(key);
+		if (entries == null) {
+			entries = new ArrayList<Entry>(2);
+			positions.put(key, entries);
+		}
+		for (Entry entry : entries) {
+			if (entry.move == move) {
+				return entry;
+			}
+		}
+		Entry entry = new Entry(move);
+		entries.add(entry);
+		return entry;
+	}
+
+   /**
+    * Compiles the book.
+    * @param args  optional -plies=N, the output file and the inputs.
+    */
+	public static void main(String args[]) throws IOException {
+		int first = 0;
+		int plies = DEFAULT_PLIES;
+		if (args.length > 0 && args[0].startsWith("-plies=")) {
+			plies = Integer.parseInt(args[0].substring(7));
+			first = 1;
+		}
+		if (args.length - first < 2) {
+			System.err.println("Usage: java LogicGame.OpeningBookCompiler [-plies=N] book input...");
+			return;
+		}
+		OpeningBookCompiler compiler = new OpeningBookCompiler(plies);
+		for (int i = first + 1; i < args.length; i++) {
+			compiler.addPath(new File(args[i]));
+		}
+		compiler.write(args[first]);
+		System.out.println(compiler.getGames() + " games, " + compiler.positions.size() + " positions");
+	}
+}
@@ -0,0 +1,192 @@
+package LogicGame;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Multi-threaded search (Lazy SMP). Every thread runs its own Engine on
+ * the same root position and all of them share one TranspositionTable,
+ * so what a thread finds shortens the searches of the others. Helper
+ * threads search one ply deeper on odd threads to spread the work. The
+ * move of the main thread is the answer, and the helpers are stopped as
+ * soon as it is found.
+ *
+ * Run it as a program to measure how the search scales with the number
+ * of threads: java LogicGame.ParallelSearch [maxThreads] [depth]
+ *
+ * @version 1.0
+ */
+public class ParallelSearch {
+
+	private final ForkJoinPool pool;
+	private final Engine[] engines;
+	private final TranspositionTable table;
+	private final AtomicBoolean stopSignal = new AtomicBoolean();
+
+   /**
+    * Creates a search running on a number of threads.
+    * @param threads  the number of search threads.
+    * @param hashMegabytes  memory used by the shared transposition table.
+    */
+	public ParallelSearch(int threads, int hashMegabytes) {
+		threads = Math.max(1, threads);
+		pool = new ForkJoinPool(threads);
+		table = new TranspositionTable(hashMegabytes);
+		engines = new Engine[threads];
+		for (int i = 0; i < threads; i++) {
+			engines[i] = new Engine(table);
+			engines[i].setStopSignal(stopSignal);
+			engines[i].setDepthOffset(i & 1);
+			engines[i].setHelper(true);
+		}
+	}
+
+	public int getThreads() {
+		return engines.length;
+	}
+
+   /**
+    * Limits the depth of the search. Every thread gets the limit, so the
+    * helpers stop too: an odd one reaches one ply more, its depth offset.
+    * @param maxDepth  the last depth searched by the main thread.
+    */
+	public void setMaxDepth(int maxDepth) {
+		for (Engine engine : engines) {
+			engine.setMaxDepth(maxDepth);
+		}
+	}
+
+   /**
+    * Looks for the best move of the player to move.
+    * @param root  the position to search, it is not modified.
+    * @param timeMillis  hard limit for the whole search, in milliseconds.
+    * @return long  the best packed move, or Move.NONE if there is no legal move.
+    */
+	public long search(Position root, long timeMillis) {
+		long start = System.nanoTime();
+		Metrics.SearchEvent event = new Metrics.SearchEvent();
+		event.begin();
+		stopSignal.set(false);
+		// Aged once here: every engine incrementing it would race and age it N times
+		table.newSearch();
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		ForkJoinTask<Long>[] tasks = new ForkJoinTask[engines.length];
+		for (int i = 0; i < engines.length; i++) {
+			Engine engine = engines[i];
+			tasks[i] = pool.submit(() -> engine.search(root, timeMillis));
+		}
+		try {
+			return tasks[0].get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Move.NONE;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			stopSignal.set(true);
+			for (int i = 1; i < tasks.length; i++) {
+				tasks[i].join();
+			}
+			record(start, event);
+		}
+	}
+
+	// Records the search once, with the work of all the threads
+	private void record(long start, Metrics.SearchEvent event) {
+		long generated = 0;
+		for (Engine engine : engines) {
+			generated += engine.getGenerated();
+		}
+		long nodes = getNodes();
+		Metrics.recordSearch(System.nanoTime() - start, nodes, generated);
+		if (event.shouldCommit()) {
+			event.nodes = nodes;
+			event.generated = generated;
+			event.depth = getLastDepth();
+			event.score = getLastScore();
+			event.commit();
+		}
+	}
+
+   /**
+    * Returns the nodes visited by all the threads during the last search.
+    * @return long  the total number of nodes.
+    */
+	public long getNodes() {
+		long nodes = 0;
+		for (Engine engine : engines) {
+			nodes += engine.getNodes();
+		}
+		return nodes;
+	}
+
+	public int getLastDepth() {
+		return engines[0].getLastDepth();
+	}
+
+	public int getLastScore() {
+		return engines[0].getLastScore();
+	}
+
+	public void setTablebase(Tablebase tablebase) {
+		for (Engine engine : engines) {
+			engine.setTablebase(tablebase);
+		}
+	}
+
+   /**
+    * Scores the leaves with a neural network, or with the Evaluation
+    * tables when it is null. Every thread keeps its own accumulators.
+    * @param network  the network, shared by the threads.
+    */
+	public void setNetwork(Network network) {
+		for (Engine engine : engines) {
+			engine.setNetwork(network);
+		}
+	}
+
+	public void setOpeningBook(OpeningBook book) {
+		engines[0].setOpeningBook(book);
+	}
+
+	public void clearTable() {
+		table.clear();
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+   /**
+    * Benchmark mode: searches the initial position to a fixed depth with
+    * 1, 2, 4... threads up to the maximum given, and reports the time to
+    * reach the depth, the nodes per second and the scaling efficiency.
+    * @param args  optional maximum number of threads and depth.
+    */
+	public static void main(String args[]) {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+				: Runtime.getRuntime().availableProcessors();
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 18;
+		Position root = new ChessBoard().getPosition();
+		double baseTime = 0;
+
+		for (int threads = 1; threads <= maxThreads; threads = threads < maxThreads
+				? Math.min(threads * 2, maxThreads) : threads + 1) {
+			ParallelSearch search = new ParallelSearch(threads, 64);
+			search.setMaxDepth(depth);
+			long start = System.nanoTime();
+			long move = search.search(root, Engine.NO_TIME_LIMIT);
+			double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+			if (threads == 1) {
+				baseTime = seconds;
+			}
+			double speedup = baseTime / seconds;
+			System.out.printf("threads %2d  depth %d  move %s  time %.3f s  %.0f nodes/s  speedup %.2f  efficiency %.0f%%%n",
+					threads, search.getLastDepth(), Move.toString(move), seconds,
+					search.getNodes() / seconds, speedup, 100 * speedup / threads);
+			search.shutdown();
+		}
+	}
+}
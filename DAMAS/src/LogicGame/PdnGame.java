@@ -0,0 +1,214 @@
+package LogicGame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * One game of a Portable Draughts Notation (PDN) file: its tag pairs, its
+ * moves in numeric notation and its result.
+ *
+ * Squares are numbered 1 to 32 from the black side: b8, d8, f8, h8 are
+ * 1 to 4 and a1, c1, e1, g1 are 29 to 32. A move is written "22-18" and a
+ * capture "18x11", or with every landing square, "18x11x2".
+ *
+ * @version 1.0
+ */
+public class PdnGame {
+
+	public final static String UNKNOWN_RESULT = "*";
+	// Tag of the position a game set up on the board starts from
+	public final static String FEN_TAG = "FEN";
+
+	private final static Position INITIAL = new ChessBoard().getPosition();
+
+	private final LinkedHashMap<String, String> tags = new LinkedHashMap<String, String>();
+	private final ArrayList<String> moves = new ArrayList<String>();
+	private String result = UNKNOWN_RESULT;
+
+	public LinkedHashMap<String, String> getTags() {
+		return tags;
+	}
+
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	public void setTag(String name, String value) {
+		tags.put(name, value);
+	}
+
+	public ArrayList<String> getMoves() {
+		return moves;
+	}
+
+	public void addMove(String move) {
+		moves.add(move);
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	public void setResult(String result) {
+		this.result = result;
+	}
+
+   /**
+    * Builds a game from moves in the "a3 b4" notation of CheckersIO,
+    * replaying them from the initial position.
+    * @param lines  the moves, one per entry.
+    * @return PdnGame  the game.
+    * @exception CheckersException if a move is not legal.
+    */
+	public static PdnGame fromMoves(ArrayList<String> lines) throws CheckersException {
+		PdnGame game = new PdnGame();
+		Position position = new ChessBoard().getPosition();
+		long[] buffer = new long[MoveGenerator.MAX_MOVES];
+		int[] path = new int[Move.MAX_PATH];
+		for (String line : lines) {
+			if (line.trim().isEmpty() || CheckersIO.getSnapshot(line) != null) {
+				continue;
+			}
+			long move = Move.parse(position, line, buffer, path);
+			if (move == Move.NONE) {
+				throw new CheckersException(CheckersException.ILLEGAL_GAME_MOVE,
+						"ply " + (game.getMoves().size() + 1) + ", " + line.trim());
+			}
+			game.addMove(toPdn(position, move, buffer));
+			position.play(move);
+		}
+		switch (position.getState()) {
+		case Position.WHITE_WINS:
+			game.setResult("2-0");
+			break;
+		case Position.BLACK_WINS:
+			game.setResult("0-2");
+			break;
+		case Position.DRAW:
+			game.setResult("1-1");
+			break;
+		}
+		return game;
+	}
+
+   /**
+    * Sets a position to the one the game starts from: the position of its
+    * FEN tag when it has one, or else the initial position.
+    * @param position  the position to set.
+    * @return boolean  false if the FEN tag is not a valid position.
+    */
+	public boolean getStart(Position position) {
+		String fen = getTag(FEN_TAG);
+		if (fen == null) {
+			position.copyFrom(INITIAL);
+			return true;
+		}
+		return position.setFen(fen);
+	}
+
+   /**
+    * Replays the game, from its FEN tag if it has one, and returns its
+    * moves in "a3 b4" notation.
+    * @return ArrayList<String>  the moves.
+    * @exception CheckersException if the FEN tag or a move is not valid.
+    */
+	public ArrayList<String> toMoves() throws CheckersException {
+		ArrayList<String> lines = new ArrayList<String>();
+		Position position = new Position();
+		if (!getStart(position)) {
+			throw new CheckersException(CheckersException.INCORRECT_SNAPSHOT, getTag(FEN_TAG));
+		}
+		long[] buffer = new long[MoveGenerator.MAX_MOVES];
+		int[] path = new int[Move.MAX_PATH];
+		for (String text : moves) {
+			long move = parseMove(position, text, buffer, path);
+			if (move == Move.NONE) {
+				throw new CheckersException(CheckersException.ILLEGAL_GAME_MOVE,
+						"ply " + (lines.size() + 1) + ", " + text);
+			}
+			lines.add(Move.toString(position, move, buffer));
+			position.play(move);
+		}
+		return lines;
+	}
+
+   /**
+    * Returns the PDN number (1..32) of a square.
+    */
+	public static int number(int square) {
+		return (ChessBoard.ROWS - 1 - Position.row(square)) * 4 + (square & 3) + 1;
+	}
+
+   /**
+    * Returns the square of a PDN number, or Position.NO_SQUARE.
+    */
+	public static int square(int number) {
+		if (number < 1 || number > Position.SQUARES) {
+			return Position.NO_SQUARE;
+		}
+		return (ChessBoard.ROWS - 1 - (number - 1) / 4) * 4 + (number - 1) % 4;
+	}
+
+   /**
+    * Writes a packed move in PDN notation. Captures are written with their
+    * origin and destination only.
+    */
+	public static String toPdn(long move) {
+		return number(Move.from(move)) + (Move.isCapture(move) ? "x" : "-") + number(Move.to(move));
+	}
+
+   /**
+    * Writes a packed move in PDN notation, with every landing square, like
+    * "18x11x2", when another capture has the same origin and destination.
+    * @param position  the position the move is played on.
+    * @param move  a packed move generated for this position.
+    * @param buffer  buffer used to generate the legal moves.
+    * @return String  the move.
+    */
+	public static String toPdn(Position position, long move, long[] buffer) {
+		if (MoveCache.SHARED.get(position, buffer).count(Move.from(move), Move.to(move)) <= 1) {
+			return toPdn(move);
+		}
+		int[] path = new int[Move.MAX_PATH];
+		int length = MoveGenerator.path(position, move, path);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				sb.append('x');
+			}
+			sb.append(number(path[i]));
+		}
+		return sb.toString();
+	}
+
+   /**
+    * Finds the legal move written in PDN notation. When the landing squares
+    * of a capture are given they choose between captures that share their
+    * origin and destination, which must be given for such captures.
+    * @param position  the position the move is played on.
+    * @param text  the move, like "22-18", "18x11" or "18x11x2".
+    * @param buffer  buffer used to generate the legal moves.
+    * @param path  buffer of Move.MAX_PATH squares receiving the squares read.
+    * @return long  the packed move, or Move.NONE if it is not legal or
+    *               could be more than one.
+    */
+	public static long parseMove(Position position, String text, long[] buffer, int[] path) {
+		int length = 0;
+		int number = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : '-';
+			if (c >= '0' && c <= '9') {
+				number = (number < 0 ? 0 : number * 10) + (c - '0');
+			} else if (c == '-' || c == 'x' || c == 'X' || c == ':') {
+				if (number >= 0 && length < path.length) {
+					path[length++] = square(number);
+				}
+				number = -1;
+			}
+		}
+		if (length < 2 || path[0] == Position.NO_SQUARE || path[length - 1] == Position.NO_SQUARE) {
+			return Move.NONE;
+		}
+		return MoveCache.SHARED.get(position, buffer).find(path, length);
+	}
+}
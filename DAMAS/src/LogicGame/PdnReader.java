@@ -0,0 +1,216 @@
+package LogicGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming reader of PDN files. Games are read one at a time from a
+ * channel through fixed-size buffers, so a file of any size is read with
+ * the memory of a single game.
+ *
+ * Comments ({...} and ; to the end of the line), variations in brackets,
+ * move numbers and move strength marks are skipped.
+ *
+ * @version 1.0
+ */
+public class PdnReader implements Closeable {
+
+	private final static int BUFFER_SIZE = 1 << 16;
+	private final static int EOF = -1;
+
+	private final ReadableByteChannel channel;
+	private final CharsetDecoder decoder;
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	private final StringBuilder token = new StringBuilder();
+	private boolean endOfInput;
+	private boolean decoded;
+	private int pushedBack = EOF;
+
+	public PdnReader(ReadableByteChannel channel) {
+		this(channel, StandardCharsets.ISO_8859_1);
+	}
+
+	public PdnReader(ReadableByteChannel channel, Charset charset) {
+		this.channel = channel;
+		this.decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		chars.flip();
+	}
+
+	public static PdnReader open(String file) throws IOException {
+		return new PdnReader(FileChannel.open(Paths.get(file), StandardOpenOption.READ));
+	}
+
+   /**
+    * Reads the next game of the file.
+    * @return PdnGame  the game, or null when there are no more games.
+    * @exception IOException if the channel cannot be read.
+    */
+	public PdnGame next() throws IOException {
+		PdnGame game = null;
+		boolean inMoves = false;
+		int c;
+		while ((c = read()) != EOF) {
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			if (c == '[') {
+				if (inMoves) {
+					// Tags of the next game: the current one has no result
+					pushedBack = c;
+					return game;
+				}
+				if (game == null) {
+					game = new PdnGame();
+				}
+				readTag(game);
+			} else if (c == '{') {
+				skipUntil('}');
+			} else if (c == ';') {
+				skipUntil('\n');
+			} else if (c == '(') {
+				skipVariation();
+			} else {
+				if (game == null) {
+					game = new PdnGame();
+				}
+				inMoves = true;
+				String word = readWord(c);
+				if (isResult(word)) {
+					game.setResult(word);
+					return game;
+				}
+				String move = stripMove(word);
+				if (move != null) {
+					game.addMove(move);
+				}
+			}
+		}
+		return game;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private void readTag(PdnGame game) throws IOException {
+		token.setLength(0);
+		int c;
+		while ((c = read()) != EOF && c != '"' && c != ']') {
+			token.append((char) c);
+		}
+		String name = token.toString().trim();
+		token.setLength(0);
+		if (c == '"') {
+			while ((c = read()) != EOF && c != '"') {
+				if (c == '\\') {
+					c = read();
+				}
+				token.append((char) c);
+			}
+			skipUntil(']');
+		}
+		game.setTag(name, token.toString());
+	}
+
+	private String readWord(int first) throws IOException {
+		token.setLength(0);
+		int c = first;
+		while (c != EOF && !Character.isWhitespace(c) && c != '{' && c != '(' && c != '[' && c != ';') {
+			token.append((char) c);
+			c = read();
+		}
+		if (c != EOF && !Character.isWhitespace(c)) {
+			pushedBack = c;
+		}
+		return token.toString();
+	}
+
+	// Keeps the squares of a move, dropping its number ("12.") and marks ("!?")
+	private static String stripMove(String word) {
+		int start = word.lastIndexOf('.') + 1;
+		int end = word.length();
+		while (end > start && !Character.isDigit(word.charAt(end - 1))) {
+			end--;
+		}
+		if (start >= end || !Character.isDigit(word.charAt(start))) {
+			return null;
+		}
+		String move = word.substring(start, end);
+		return move.indexOf('-') > 0 || move.indexOf('x') > 0 || move.indexOf(':') > 0 ? move : null;
+	}
+
+	private static boolean isResult(String word) {
+		return word.equals("*") || word.equals("1-0") || word.equals("0-1") || word.equals("1/2-1/2")
+				|| word.equals("2-0") || word.equals("0-2") || word.equals("1-1") || word.equals("0-0");
+	}
+
+	private void skipUntil(char end) throws IOException {
+		int c;
+		while ((c = read()) != EOF && c != end) {
+		}
+	}
+
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		int c;
+		while (depth > 0 && (c = read()) != EOF) {
+			if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == '{') {
+				skipUntil('}');
+			}
+		}
+	}
+
+	private int read() throws IOException {
+		if (pushedBack != EOF) {
+			int c = pushedBack;
+			pushedBack = EOF;
+			return c;
+		}
+		while (!chars.hasRemaining()) {
+			if (!fill()) {
+				return EOF;
+			}
+		}
+		return chars.get();
+	}
+
+	// Decodes more characters; returns false at the end of the input
+	private boolean fill() throws IOException {
+		if (decoded) {
+			return false;
+		}
+		chars.clear();
+		while (chars.position() == 0) {
+			if (!endOfInput && channel.read(bytes) < 0) {
+				endOfInput = true;
+			}
+			bytes.flip();
+			decoder.decode(bytes, chars, endOfInput);
+			bytes.compact();
+			if (endOfInput) {
+				decoder.flush(chars);
+				decoded = true;
+				break;
+			}
+		}
+		chars.flip();
+		return chars.hasRemaining();
+	}
+}
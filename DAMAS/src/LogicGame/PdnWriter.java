@@ -0,0 +1,114 @@
+package LogicGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Streaming writer of PDN files. Games are encoded into a fixed-size
+ * buffer and written to the channel as it fills, so any number of games
+ * can be written with flat memory.
+ *
+ * @version 1.0
+ */
+public class PdnWriter implements Closeable {
+
+	private final static int BUFFER_SIZE = 1 << 16;
+	private final static int LINE_LENGTH = 79;
+
+	private final WritableByteChannel channel;
+	// Characters outside Latin-1 are written as '?' rather than ending the game text
+	private final CharsetEncoder encoder = StandardCharsets.ISO_8859_1.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private final StringBuilder text = new StringBuilder();
+
+	public PdnWriter(WritableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	public static PdnWriter create(String file) throws IOException {
+		return new PdnWriter(FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+   /**
+    * Writes one game: its tags, its numbered moves and its result.
+    * @param game  the game to write.
+    * @exception IOException if the channel cannot be written.
+    */
+	public void write(PdnGame game) throws IOException {
+		text.setLength(0);
+		for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			text.append('[').append(tag.getKey()).append(" \"")
+					.append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+		}
+		if (!game.getTags().containsKey("Result")) {
+			text.append("[Result \"").append(game.getResult()).append("\"]\n");
+		}
+
+		int lineStart = text.length();
+		int ply = 0;
+		for (String move : game.getMoves()) {
+			String word = ply % 2 == 0 ? (ply / 2 + 1) + ". " + move : move;
+			lineStart = appendWord(word, lineStart);
+			ply++;
+		}
+		appendWord(game.getResult(), lineStart);
+		text.append("\n\n");
+		encode();
+	}
+
+	public void flush() throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+		bytes.clear();
+	}
+
+	public void close() throws IOException {
+		flush();
+		channel.close();
+	}
+
+	// Appends a word, breaking the line when it gets too long
+	private int appendWord(String word, int lineStart) {
+		if (text.length() > lineStart) {
+			if (text.length() - lineStart + 1 + word.length() > LINE_LENGTH) {
+				text.append('\n');
+				lineStart = text.length();
+			} else {
+				text.append(' ');
+			}
+		}
+		text.append(word);
+		return lineStart;
+	}
+
+	private void encode() throws IOException {
+		CharBuffer chars = CharBuffer.wrap(text);
+		while (true) {
+			CoderResult result = encoder.encode(chars, bytes, true);
+			if (result.isOverflow()) {
+				flush();
+			} else if (result.isError()) {
+				result.throwException();
+			} else {
+				break;
+			}
+		}
+		encoder.reset();
+	}
+}
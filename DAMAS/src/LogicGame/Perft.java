@@ -0,0 +1,73 @@
+package LogicGame;
+
+/**
+ * Perft node counter. It walks the whole tree of legal moves to a fixed
+ * depth and counts the leaves, which both checks the move generator and
+ * measures its speed.
+ *
+ * Run it as a program to benchmark the generator from the initial
+ * position: java LogicGame.Perft [depth]
+ *
+ * @version 1.0
+ */
+public class Perft {
+
+	private final Position position;
+	private final long[][] moves;
+
+   /**
+    * Creates a counter for a position.
+    * @param position  the root position, it is not modified.
+    * @param maxDepth  the deepest perft that will be asked for.
+    */
+	public Perft(Position position, int maxDepth) {
+		this.position = new Position(position);
+		moves = new long[maxDepth + 1][MoveGenerator.MAX_MOVES];
+	}
+
+   /**
+    * Counts the leaf nodes of the move tree.
+    * @param depth  the depth of the tree, at most maxDepth.
+    * @return long  the number of positions reached after depth plies.
+    */
+	public long perft(int depth) {
+		return perft(0, depth);
+	}
+
+	private long perft(int ply, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		long[] list = moves[ply];
+		int count = MoveGenerator.generate(position, position.getSideToMove(), list);
+		if (depth == 1) {
+			return count;
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(list[i]);
+			nodes += perft(ply + 1, depth - 1);
+			position.unmakeMove();
+		}
+		return nodes;
+	}
+
+   /**
+    * Benchmark mode: runs perft from the initial position for every depth
+    * up to the one given and reports the nodes per second.
+    * @param args  optional maximum depth, 9 by default.
+    */
+	public static void main(String args[]) {
+		int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+		ChessBoard board = new ChessBoard();
+		Perft perft = new Perft(board.getPosition(), maxDepth);
+
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			long start = System.nanoTime();
+			long nodes = perft.perft(depth);
+			long elapsed = Math.max(1, System.nanoTime() - start);
+			System.out.printf("perft(%d) = %d  %.3f s  %.0f nodes/s%n", depth, nodes,
+					elapsed / 1e9, nodes * 1e9 / elapsed);
+		}
+	}
+}
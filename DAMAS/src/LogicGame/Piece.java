@@ -7,8 +7,6 @@ public abstract class Piece {
 	public final static boolean WHITE = true;
 	public final static boolean BLACK = false;
 	public final static Piece EMPTY = null;
-	public static int TOTAL_WHITE_PIECES = 0;
-	public static int TOTAL_BLACK_PIECES = 0;
 	
 	
 	protected boolean colour;
@@ -25,7 +23,9 @@ public abstract class Piece {
 		return this.colour;
 	}
 	
-	public abstract ArrayList<String> GetValidMoves (ChessBoard board, String posistion);
+	public ArrayList<String> GetValidMoves (ChessBoard board, String position) {
+		return board.getValidMoves(position);
+	}
 	
 	public boolean IsInsideBoard(int col, int row) {
 		if(col >= 0 && col < ChessBoard.COLS && row >= 0 && row < ChessBoard.ROWS) {
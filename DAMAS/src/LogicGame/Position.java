@@ -0,0 +1,551 @@
+package LogicGame;
+
+import java.util.Arrays;
+
+/**
+ * Compact position core. Only the 32 dark squares of the board can hold a
+ * piece, so the whole game state fits in three 32-bit masks: one bit per
+ * playable square for the white pieces, the black pieces and the kings
+ * (a king is a piece whose bit is also set in the kings mask).
+ *
+ * Squares are numbered row by row from the white side: a1, c1, e1, g1 are
+ * squares 0..3, b2, d2, f2, h2 are squares 4..7 and so on up to g7..h8.
+ *
+ * @version 1.0
+ */
+public class Position {
+
+	public final static int SQUARES = 32;
+	public final static int NO_SQUARE = -1;
+
+	// State of the game, see getState
+	public final static int IN_PLAY = 0;
+	public final static int WHITE_WINS = 1;
+	public final static int BLACK_WINS = 2;
+	public final static int DRAW = 3;
+
+	/** Plies without a capture or a man move after which the game is drawn. */
+	public final static int DRAW_QUIET_PLIES = 80;
+
+	// Squares of the even rows (1, 3, 5, 7 on the board) and of the odd ones,
+	// and those of the files a and h, used to shift whole masks one step
+	private final static int EVEN_ROWS = 0x0F0F0F0F;
+	private final static int ODD_ROWS = 0xF0F0F0F0;
+	private final static int FILE_A = 0x01010101;
+	private final static int FILE_H = 0x80808080;
+
+	private int white;
+	private int black;
+	private int kings;
+	private boolean sideToMove;
+	private long hash;
+	// Plies played since the last capture or man move
+	private int quietPlies;
+	// Sum of the Evaluation tables of the pieces, for white
+	private int score;
+
+	// Undo stack: the state before each move made with makeMove. It is
+	// only allocated by the first makeMove, so stored positions stay small.
+	private int[] undoWhite;
+	private int[] undoBlack;
+	private int[] undoKings;
+	private long[] undoHash;
+	private int[] undoQuiet;
+	private int[] undoScore;
+	private int undoSize;
+
+	private final static int UNDO_CAPACITY = 256;
+
+	public Position() {
+		clear();
+	}
+
+	public Position(Position other) {
+		copyFrom(other);
+	}
+
+   /**
+    * Copies the state of another position into this one.
+    * @param other  the position to copy.
+    */
+	public void copyFrom(Position other) {
+		this.white = other.white;
+		this.black = other.black;
+		this.kings = other.kings;
+		this.sideToMove = other.sideToMove;
+		this.hash = other.hash;
+		this.quietPlies = other.quietPlies;
+		this.score = other.score;
+		this.undoSize = 0;
+	}
+
+   /**
+    * Removes every piece from the position and gives the turn to white.
+    */
+	public void clear() {
+		white = 0;
+		black = 0;
+		kings = 0;
+		sideToMove = Piece.WHITE;
+		hash = 0;
+		quietPlies = 0;
+		score = 0;
+		undoSize = 0;
+	}
+
+   /**
+    * Places a piece on a square, replacing whatever was there.
+    * @param square  the square index (0..31).
+    * @param colour  Piece.WHITE or Piece.BLACK.
+    * @param king  true to place a king, false to place a man.
+    */
+	public void put(int square, boolean colour, boolean king) {
+		remove(square);
+		int bit = 1 << square;
+		if (colour == Piece.WHITE) {
+			white |= bit;
+		} else {
+			black |= bit;
+		}
+		if (king) {
+			kings |= bit;
+		}
+		hash ^= Zobrist.PIECE[Zobrist.kind(colour, king)][square];
+		score += Evaluation.TABLE[Zobrist.kind(colour, king)][square];
+	}
+
+   /**
+    * Empties a square.
+    * @param square  the square index (0..31).
+    */
+	public void remove(int square) {
+		int bit = 1 << square;
+		if (((white | black) & bit) == 0) {
+			return;
+		}
+		int kind = Zobrist.kind((white & bit) != 0, (kings & bit) != 0);
+		hash ^= Zobrist.PIECE[kind][square];
+		score -= Evaluation.TABLE[kind][square];
+		white &= ~bit;
+		black &= ~bit;
+		kings &= ~bit;
+	}
+
+   /**
+    * Plays a packed move: the piece leaves its origin square, every
+    * captured piece is removed, a man is crowned if the move promotes and
+    * the turn passes to the other player. The hash key and the score are
+    * updated with only what the move changed.
+    * @param move  a packed move generated for this position.
+    */
+	public void play(long move) {
+		int fromSquare = Move.from(move);
+		int toSquare = Move.to(move);
+		int from = 1 << fromSquare;
+		int to = 1 << toSquare;
+		int captured = Move.captured(move);
+		boolean colour = (white & from) != 0;
+		boolean wasKing = (kings & from) != 0;
+		boolean king = wasKing || Move.isPromotion(move);
+
+		int moved = Zobrist.kind(colour, wasKing);
+		int landed = Zobrist.kind(colour, king);
+		long key = hash ^ Zobrist.PIECE[moved][fromSquare]
+				^ Zobrist.PIECE[landed][toSquare] ^ Zobrist.BLACK_TO_MOVE;
+		int value = score - Evaluation.TABLE[moved][fromSquare] + Evaluation.TABLE[landed][toSquare];
+		for (int bits = captured; bits != 0; bits &= bits - 1) {
+			int sq = Integer.numberOfTrailingZeros(bits);
+			int kind = Zobrist.kind(!colour, (kings & (1 << sq)) != 0);
+			key ^= Zobrist.PIECE[kind][sq];
+			value -= Evaluation.TABLE[kind][sq];
+		}
+
+		if (colour == Piece.WHITE) {
+			white = (white & ~from) | to;
+			black &= ~captured;
+		} else {
+			black = (black & ~from) | to;
+			white &= ~captured;
+		}
+		kings &= ~(from | captured);
+		if (king) {
+			kings |= to;
+		}
+		sideToMove = !sideToMove;
+		hash = key;
+		score = value;
+		quietPlies = captured != 0 || !wasKing ? 0 : quietPlies + 1;
+	}
+
+   /**
+    * Plays a packed move and remembers how to take it back. Captured
+    * pieces, the crowning of the piece and the hash key are all restored
+    * by unmakeMove.
+    * @param move  a packed move generated for this position.
+    */
+	public void makeMove(long move) {
+		if (undoHash == null || undoSize == undoHash.length) {
+			growUndoStack();
+		}
+		undoWhite[undoSize] = white;
+		undoBlack[undoSize] = black;
+		undoKings[undoSize] = kings;
+		undoHash[undoSize] = hash;
+		undoQuiet[undoSize] = quietPlies;
+		undoScore[undoSize] = score;
+		undoSize++;
+		play(move);
+	}
+
+   /**
+    * Takes back the last move played with makeMove.
+    */
+	public void unmakeMove() {
+		undoSize--;
+		white = undoWhite[undoSize];
+		black = undoBlack[undoSize];
+		kings = undoKings[undoSize];
+		hash = undoHash[undoSize];
+		quietPlies = undoQuiet[undoSize];
+		score = undoScore[undoSize];
+		sideToMove = !sideToMove;
+	}
+
+   /**
+    * Returns how many moves can be taken back with unmakeMove.
+    * @return int  the number of moves on the undo stack.
+    */
+	public int getUndoSize() {
+		return undoSize;
+	}
+
+	private void growUndoStack() {
+		if (undoHash == null) {
+			undoWhite = new int[UNDO_CAPACITY];
+			undoBlack = new int[UNDO_CAPACITY];
+			undoKings = new int[UNDO_CAPACITY];
+			undoHash = new long[UNDO_CAPACITY];
+			undoQuiet = new int[UNDO_CAPACITY];
+			undoScore = new int[UNDO_CAPACITY];
+			return;
+		}
+		int capacity = undoHash.length * 2;
+		undoWhite = Arrays.copyOf(undoWhite, capacity);
+		undoBlack = Arrays.copyOf(undoBlack, capacity);
+		undoKings = Arrays.copyOf(undoKings, capacity);
+		undoHash = Arrays.copyOf(undoHash, capacity);
+		undoQuiet = Arrays.copyOf(undoQuiet, capacity);
+		undoScore = Arrays.copyOf(undoScore, capacity);
+	}
+
+	public boolean getSideToMove() {
+		return sideToMove;
+	}
+
+	public void setSideToMove(boolean colour) {
+		if (colour != sideToMove) {
+			sideToMove = colour;
+			hash ^= Zobrist.BLACK_TO_MOVE;
+		}
+	}
+
+   /**
+    * Returns the Zobrist key of the position, kept up to date by every
+    * change made to it.
+    * @return long  the 64-bit hash key.
+    */
+	public long getHash() {
+		return hash;
+	}
+
+   /**
+    * Replaces the whole position at once.
+    * @param white  mask of the white pieces.
+    * @param black  mask of the black pieces.
+    * @param kings  mask of the kings of both colours.
+    * @param sideToMove  the player to move.
+    */
+	public void set(int white, int black, int kings, boolean sideToMove) {
+		this.white = white;
+		this.black = black & ~white;
+		this.kings = kings & (white | black);
+		this.sideToMove = sideToMove;
+		this.hash = Zobrist.compute(this);
+		this.score = Evaluation.compute(this);
+		this.quietPlies = 0;
+		this.undoSize = 0;
+	}
+
+   /**
+    * Returns the position in the FEN notation of PDN, like
+    * "W:W21,22,K3:B1,2": the player to move, then the white and the black
+    * pieces by their PDN square number, kings prefixed with K.
+    * @return String  the snapshot of the position.
+    */
+	public String toFen() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(sideToMove == Piece.WHITE ? 'W' : 'B');
+		appendFen(sb, 'W', white);
+		appendFen(sb, 'B', black);
+		return sb.toString();
+	}
+
+	private void appendFen(StringBuilder sb, char colour, int pieces) {
+		sb.append(':').append(colour);
+		boolean first = true;
+		// PDN numbers grow from the black side, so walk the squares down from 31
+		for (int row = ChessBoard.ROWS - 1; row >= 0; row--) {
+			for (int sq = row * 4; sq < row * 4 + 4; sq++) {
+				if ((pieces & (1 << sq)) != 0) {
+					if (!first) {
+						sb.append(',');
+					}
+					if ((kings & (1 << sq)) != 0) {
+						sb.append('K');
+					}
+					sb.append(PdnGame.number(sq));
+					first = false;
+				}
+			}
+		}
+	}
+
+   /**
+    * Replaces the whole position with a snapshot written by toFen. Ranges
+    * of squares like "W21-24" are accepted as well.
+    * @param fen  the snapshot.
+    * @return boolean  false, leaving the position unchanged, if the
+    *                  snapshot is not valid.
+    */
+	public boolean setFen(String fen) {
+		String[] fields = fen.trim().replace(".", "").split(":");
+		if (fields.length < 1 || fields.length > 3 || fields[0].trim().length() != 1) {
+			return false;
+		}
+		char side = Character.toUpperCase(fields[0].trim().charAt(0));
+		if (side != 'W' && side != 'B') {
+			return false;
+		}
+		int[] masks = new int[3];
+		for (int i = 1; i < fields.length; i++) {
+			if (!parseFenPieces(fields[i].trim(), masks)) {
+				return false;
+			}
+		}
+		set(masks[0], masks[1], masks[2], side == 'W' ? Piece.WHITE : Piece.BLACK);
+		return true;
+	}
+
+	// Reads one colour of a snapshot into masks {white, black, kings}
+	private static boolean parseFenPieces(String field, int[] masks) {
+		if (field.isEmpty()) {
+			return false;
+		}
+		char colour = Character.toUpperCase(field.charAt(0));
+		if (colour != 'W' && colour != 'B') {
+			return false;
+		}
+		String list = field.substring(1).trim();
+		if (list.isEmpty()) {
+			return true;
+		}
+		for (String item : list.split(",")) {
+			item = item.trim();
+			boolean king = item.startsWith("K") || item.startsWith("k");
+			if (king) {
+				item = item.substring(1);
+			}
+			int dash = item.indexOf('-');
+			int first;
+			int last;
+			try {
+				first = Integer.parseInt(dash < 0 ? item : item.substring(0, dash));
+				last = dash < 0 ? first : Integer.parseInt(item.substring(dash + 1));
+			} catch (NumberFormatException e) {
+				return false;
+			}
+			if (first > last) {
+				return false;
+			}
+			for (int number = first; number <= last; number++) {
+				int sq = PdnGame.square(number);
+				if (sq == NO_SQUARE || ((masks[0] | masks[1]) & (1 << sq)) != 0) {
+					return false;
+				}
+				masks[colour == 'W' ? 0 : 1] |= 1 << sq;
+				if (king) {
+					masks[2] |= 1 << sq;
+				}
+			}
+		}
+		return true;
+	}
+
+	public int getWhite() {
+		return white;
+	}
+
+	public int getBlack() {
+		return black;
+	}
+
+	public int getKings() {
+		return kings;
+	}
+
+	public int getPieces(boolean colour) {
+		return colour == Piece.WHITE ? white : black;
+	}
+
+	public int getOccupied() {
+		return white | black;
+	}
+
+	public int getEmpty() {
+		return ~(white | black);
+	}
+
+	public boolean isEmpty(int square) {
+		return ((white | black) & (1 << square)) == 0;
+	}
+
+	public boolean isWhite(int square) {
+		return (white & (1 << square)) != 0;
+	}
+
+	public boolean isKing(int square) {
+		return (kings & (1 << square)) != 0;
+	}
+
+	public int countPieces(boolean colour) {
+		return Integer.bitCount(getPieces(colour));
+	}
+
+   /**
+    * Returns the number of plies played since the last capture or the
+    * last move of a man. It is kept by play and restored by unmakeMove.
+    * @return int  the number of quiet plies.
+    */
+	public int getQuietPlies() {
+		return quietPlies;
+	}
+
+   /**
+    * Tells whether a player has at least one legal move, without
+    * generating any. The masks of all the pieces are shifted one step and
+    * two steps along each diagonal at once, so it costs the same whatever
+    * the number of pieces.
+    * @param colour  Piece.WHITE or Piece.BLACK.
+    * @return boolean  true if the player can move or capture.
+    */
+	public boolean hasMoves(boolean colour) {
+		int own = colour == Piece.WHITE ? white : black;
+		int opponent = colour == Piece.WHITE ? black : white;
+		int empty = ~(white | black);
+		int men = own & ~kings;
+		int forward = colour == Piece.WHITE ? men | (own & kings) : own & kings;
+		int backward = colour == Piece.WHITE ? own & kings : men | (own & kings);
+		int left;
+		int right;
+		if (forward != 0) {
+			left = upLeft(forward);
+			right = upRight(forward);
+			if ((((left | right) & empty) | (upLeft(left & opponent) & empty)
+					| (upRight(right & opponent) & empty)) != 0) {
+				return true;
+			}
+		}
+		if (backward != 0) {
+			left = downLeft(backward);
+			right = downRight(backward);
+			if ((((left | right) & empty) | (downLeft(left & opponent) & empty)
+					| (downRight(right & opponent) & empty)) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+   /**
+    * Returns the static evaluation of the position, the sum of the
+    * Evaluation tables of its pieces. It is kept up to date by every
+    * change made to the position, so reading it costs nothing.
+    * @return int  the score for white, in hundredths of a man.
+    */
+	public int getScore() {
+		return score;
+	}
+
+   /**
+    * Returns the state of the game: the player to move loses with no
+    * piece or no legal move left, and the game is drawn after
+    * DRAW_QUIET_PLIES plies of kings moving without capturing.
+    * @return int  IN_PLAY, WHITE_WINS, BLACK_WINS or DRAW.
+    */
+	public int getState() {
+		if (!hasMoves(sideToMove)) {
+			return sideToMove == Piece.WHITE ? BLACK_WINS : WHITE_WINS;
+		}
+		// Only reached on a board set up without the pieces of one side
+		if ((sideToMove == Piece.WHITE ? black : white) == 0) {
+			return sideToMove == Piece.WHITE ? WHITE_WINS : BLACK_WINS;
+		}
+		return quietPlies >= DRAW_QUIET_PLIES ? DRAW : IN_PLAY;
+	}
+
+	// Each piece moved one step along a diagonal; a flying king needs the
+	// adjacent square free to move, so one step is enough to know it can
+	private static int upLeft(int pieces) {
+		return ((pieces & EVEN_ROWS & ~FILE_A) << 3) | ((pieces & ODD_ROWS) << 4);
+	}
+
+	private static int upRight(int pieces) {
+		return ((pieces & EVEN_ROWS) << 4) | ((pieces & ODD_ROWS & ~FILE_H) << 5);
+	}
+
+	private static int downLeft(int pieces) {
+		return ((pieces & EVEN_ROWS & ~FILE_A) >>> 5) | ((pieces & ODD_ROWS) >>> 4);
+	}
+
+	private static int downRight(int pieces) {
+		return ((pieces & EVEN_ROWS) >>> 4) | ((pieces & ODD_ROWS & ~FILE_H) >>> 3);
+	}
+
+   /**
+    * Returns the square index of a board coordinate.
+    * @param col  the x-axis (0..7).
+    * @param row  the y-axis (0..7).
+    * @return int  the square index, or NO_SQUARE for light or outside cells.
+    */
+	public static int square(int col, int row) {
+		if (col < 0 || col >= ChessBoard.COLS || row < 0 || row >= ChessBoard.ROWS
+				|| ((row + col) & 1) != 0) {
+			return NO_SQUARE;
+		}
+		return (row << 2) | (col >> 1);
+	}
+
+   /**
+    * Returns the square index of a position like "a3".
+    * @param position  a position on ChessBoard.
+    * @return int  the square index, or NO_SQUARE for light or outside cells.
+    */
+	public static int square(String position) {
+		if (position.length() < 2) {
+			return NO_SQUARE;
+		}
+		return square(position.charAt(0) - 'a', position.charAt(1) - '1');
+	}
+
+	public static int row(int square) {
+		return square >> 2;
+	}
+
+	public static int col(int square) {
+		return ((square & 3) << 1) | ((square >> 2) & 1);
+	}
+
+	public static String squareName(int square) {
+		return Piece.convertPosString(col(square), row(square));
+	}
+}
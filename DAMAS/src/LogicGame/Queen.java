@@ -1,7 +1,5 @@
 package LogicGame;
 
-import java.util.ArrayList;
-
 public class Queen extends Piece {
 	final String white_queen = "\u25CE";
 	final String black_queen = "\u25C9";
@@ -13,9 +11,4 @@ public class Queen extends Piece {
 	public String toString() {
 		return this.colour? white_queen: black_queen;
 	}
-	
-	public  ArrayList<String> GetValidMoves (ChessBoard board, String position) {
-		ArrayList<String> moves = new ArrayList<String>();
-		return moves;	
-	}
 }
\ No newline at end of file
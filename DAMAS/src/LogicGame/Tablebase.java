@@ -0,0 +1,244 @@
+package LogicGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Endgame database prober. It answers win, loss or draw for any position
+ * with few enough pieces, reading the file written by TablebaseGenerator
+ * through memory-mapped buffers, so the tables stay off the heap.
+ *
+ * Only positions with white to move are stored: a position with black to
+ * move is turned half round and its colours swapped, which maps square s
+ * to square 31 - s and is exactly a bit reversal of the masks.
+ *
+ * File format (big endian):
+ * <pre>
+ *  int   MAGIC
+ *  int   maximum number of pieces
+ *  int   number of tables
+ *  per table: int material, long offset, long positions
+ *  data: 2 bits per position (DRAW, WIN or LOSS), 4 positions per byte
+ * </pre>
+ *
+ * @version 1.0
+ */
+public class Tablebase implements Closeable {
+
+	public final static int UNKNOWN = -1;
+	public final static int DRAW = 0;
+	public final static int WIN = 1;
+	public final static int LOSS = 2;
+
+	final static int MAGIC = 0x44544231;
+
+	// White men never stand on the last row and black men never on the
+	// first one, so both are indexed over 28 squares only
+	final static int MAN_SQUARES = 28;
+	// Rows where a man would have been crowned, so it can not be indexed
+	final static int WHITE_CROWN_ROW = 0xF0000000;
+	final static int BLACK_CROWN_ROW = 0x0000000F;
+	private final static int[][] BINOMIAL = new int[Position.SQUARES + 1][Position.SQUARES + 1];
+
+	static {
+		for (int n = 0; n <= Position.SQUARES; n++) {
+			BINOMIAL[n][0] = 1;
+			for (int k = 1; k <= n; k++) {
+				BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+			}
+		}
+	}
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] tables = new MappedByteBuffer[1 << 16];
+	private final int maxPieces;
+
+	private Tablebase(FileChannel channel) throws IOException {
+		this.channel = channel;
+		ByteBuffer header = ByteBuffer.allocate(12);
+		channel.read(header, 0);
+		header.flip();
+		if (header.getInt() != MAGIC) {
+			throw new IOException("Not an endgame database");
+		}
+		maxPieces = header.getInt();
+		int count = header.getInt();
+
+		ByteBuffer directory = ByteBuffer.allocate(count * 20);
+		channel.read(directory, 12);
+		directory.flip();
+		for (int i = 0; i < count; i++) {
+			int material = directory.getInt();
+			long offset = directory.getLong();
+			long positions = directory.getLong();
+			tables[material] = channel.map(FileChannel.MapMode.READ_ONLY, offset, (positions + 3) / 4);
+		}
+	}
+
+   /**
+    * Opens an endgame database file.
+    * @param file  the path of the file written by TablebaseGenerator.
+    * @return Tablebase  the prober.
+    * @exception IOException if the file cannot be read or is not a database.
+    */
+	public static Tablebase open(String file) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		try {
+			return new Tablebase(channel);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+   /**
+    * Looks a position up.
+    * @param position  the position to look up.
+    * @return int  WIN, LOSS or DRAW for the player to move, or UNKNOWN
+    *              when the position is not in the database or has a man
+    *              on the row where it should have been crowned.
+    */
+	public int probe(Position position) {
+		int white = position.getWhite();
+		int black = position.getBlack();
+		int kings = position.getKings();
+		if (position.getSideToMove() == Piece.BLACK) {
+			int flipped = Integer.reverse(white);
+			white = Integer.reverse(black);
+			black = flipped;
+			kings = Integer.reverse(kings);
+		}
+		if (white == 0) {
+			return LOSS;
+		}
+		if (black == 0) {
+			return WIN;
+		}
+		if (Integer.bitCount(white | black) > maxPieces
+				|| (white & ~kings & WHITE_CROWN_ROW) != 0 || (black & ~kings & BLACK_CROWN_ROW) != 0) {
+			return UNKNOWN;
+		}
+		MappedByteBuffer table = tables[material(white, black, kings)];
+		if (table == null) {
+			return UNKNOWN;
+		}
+		long index = index(white, black, kings);
+		return (table.get((int) (index >>> 2)) >>> ((index & 3) << 1)) & 3;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	// --- Indexing, shared with TablebaseGenerator ---
+
+	static int material(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+		return whiteMen | whiteKings << 4 | blackMen << 8 | blackKings << 12;
+	}
+
+	static int material(int white, int black, int kings) {
+		return material(Integer.bitCount(white & ~kings), Integer.bitCount(white & kings),
+				Integer.bitCount(black & ~kings), Integer.bitCount(black & kings));
+	}
+
+	static int whiteMen(int material) {
+		return material & 15;
+	}
+
+	static int whiteKings(int material) {
+		return (material >> 4) & 15;
+	}
+
+	static int blackMen(int material) {
+		return (material >> 8) & 15;
+	}
+
+	static int blackKings(int material) {
+		return (material >> 12) & 15;
+	}
+
+   /**
+    * Returns the number of positions of a table, including the invalid
+    * ones where two pieces share a square.
+    */
+	static long size(int material) {
+		return (long) BINOMIAL[MAN_SQUARES][whiteMen(material)]
+				* BINOMIAL[Position.SQUARES][whiteKings(material)]
+				* BINOMIAL[MAN_SQUARES][blackMen(material)]
+				* BINOMIAL[Position.SQUARES][blackKings(material)];
+	}
+
+   /**
+    * Returns the index of a position, white to move, inside its table.
+    */
+	static long index(int white, int black, int kings) {
+		int blackMen = black & ~kings;
+		int blackKings = black & kings;
+		long index = combination(white & ~kings);
+		index = index * BINOMIAL[Position.SQUARES][Integer.bitCount(white & kings)]
+				+ combination(white & kings);
+		index = index * BINOMIAL[MAN_SQUARES][Integer.bitCount(blackMen)] + combination(blackMen >>> 4);
+		index = index * BINOMIAL[Position.SQUARES][Integer.bitCount(blackKings)]
+				+ combination(blackKings);
+		return index;
+	}
+
+   /**
+    * Rebuilds the position of an index: { white, black, kings } masks, or
+    * null when the index does not stand for a valid position.
+    */
+	static int[] position(int material, long index) {
+		int whiteMen = whiteMen(material);
+		int whiteKings = whiteKings(material);
+		int blackMen = blackMen(material);
+		int blackKings = blackKings(material);
+
+		long blackKingsCount = BINOMIAL[Position.SQUARES][blackKings];
+		int bk = squares((int) (index % blackKingsCount), blackKings);
+		index /= blackKingsCount;
+		long blackMenCount = BINOMIAL[MAN_SQUARES][blackMen];
+		int bm = squares((int) (index % blackMenCount), blackMen) << 4;
+		index /= blackMenCount;
+		long whiteKingsCount = BINOMIAL[Position.SQUARES][whiteKings];
+		int wk = squares((int) (index % whiteKingsCount), whiteKings);
+		index /= whiteKingsCount;
+		int wm = squares((int) index, whiteMen);
+
+		if ((wm & wk) != 0 || ((wm | wk) & (bm | bk)) != 0 || (bm & bk) != 0) {
+			return null;
+		}
+		return new int[] { wm | wk, bm | bk, wk | bk };
+	}
+
+	// Combinatorial number of a set of squares: sum of C(square, i)
+	private static int combination(int squares) {
+		int index = 0;
+		for (int i = 1; squares != 0; i++) {
+			index += BINOMIAL[Integer.numberOfTrailingZeros(squares)][i];
+			squares &= squares - 1;
+		}
+		return index;
+	}
+
+	private static int squares(int index, int count) {
+		int squares = 0;
+		for (int i = count; i > 0; i--) {
+			int sq = i - 1;
+			while (BINOMIAL[sq + 1][i] <= index) {
+				sq++;
+			}
+			index -= BINOMIAL[sq][i];
+			squares |= 1 << sq;
+		}
+		return squares;
+	}
+}
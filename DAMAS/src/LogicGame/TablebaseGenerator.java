@@ -0,0 +1,334 @@
+package LogicGame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Builds the endgame database read by Tablebase: the exact result of every
+ * position with up to a given number of pieces.
+ *
+ * Tables are solved from the fewest pieces up, so the result of a capture
+ * or a promotion can always be read from a table that is already solved.
+ * A table and its colour-swapped twin point to each other and are solved
+ * together by retrograde iteration: a position is won if some move leads to
+ * a lost position, and lost if every move leads to a won one (or there is
+ * no move). Passes are repeated until nothing changes and whatever is left
+ * is a draw. Each pass is split across all cores.
+ *
+ * Run it as a program: java LogicGame.TablebaseGenerator pieces file
+ *
+ * or check a database on random positions, every probe against the probes
+ * of its successors: java LogicGame.TablebaseGenerator -verify file [positions]
+ *
+ * @version 1.0
+ */
+public class TablebaseGenerator {
+
+	private final static byte UNSOLVED = 0;
+	private final static byte WIN = 1;
+	private final static byte LOSS = 2;
+	private final static byte DRAW = 3;
+	private final static byte INVALID = 4;
+
+	private final static int CHUNK = 4096;
+
+	private final int maxPieces;
+	private final HashMap<Integer, byte[]> values = new HashMap<Integer, byte[]>();
+	private final ArrayList<Integer> order = new ArrayList<Integer>();
+
+	public TablebaseGenerator(int maxPieces) {
+		if (maxPieces < 2 || maxPieces > 15) {
+			throw new IllegalArgumentException("pieces: " + maxPieces);
+		}
+		this.maxPieces = maxPieces;
+	}
+
+   /**
+    * Solves every table with up to maxPieces pieces.
+    */
+	public void generate() {
+		for (int pieces = 2; pieces <= maxPieces; pieces++) {
+			for (int men = 0; men <= pieces; men++) {
+				for (int material : materials(pieces, men)) {
+					if (values.containsKey(material)) {
+						continue;
+					}
+					int twin = swap(material);
+					long start = System.nanoTime();
+					solve(material, twin);
+					System.out.printf("%s %d positions  %.1f s%n", name(material),
+							Tablebase.size(material) + (twin == material ? 0 : Tablebase.size(twin)),
+							(System.nanoTime() - start) / 1e9);
+				}
+			}
+		}
+	}
+
+   /**
+    * Writes the solved tables in the format read by Tablebase.
+    * @param file  the output file.
+    * @exception IOException if the file cannot be written.
+    */
+	public void write(String file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			out.writeInt(Tablebase.MAGIC);
+			out.writeInt(maxPieces);
+			out.writeInt(order.size());
+			long offset = 12 + 20L * order.size();
+			for (int material : order) {
+				long positions = Tablebase.size(material);
+				out.writeInt(material);
+				out.writeLong(offset);
+				out.writeLong(positions);
+				offset += (positions + 3) / 4;
+			}
+			for (int material : order) {
+				byte[] table = values.get(material);
+				for (int i = 0; i < table.length; i += 4) {
+					int packed = 0;
+					for (int j = 0; j < 4 && i + j < table.length; j++) {
+						packed |= fileValue(table[i + j]) << (j << 1);
+					}
+					out.write(packed);
+				}
+			}
+		}
+	}
+
+	private static int fileValue(byte value) {
+		return value == WIN ? Tablebase.WIN : value == LOSS ? Tablebase.LOSS : Tablebase.DRAW;
+	}
+
+	private void solve(int material, int twin) {
+		int[] materials = material == twin ? new int[] { material } : new int[] { material, twin };
+		for (int m : materials) {
+			long size = Tablebase.size(m);
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalStateException(name(m) + " is too big");
+			}
+			values.put(m, new byte[(int) size]);
+			order.add(m);
+		}
+
+		AtomicBoolean changed = new AtomicBoolean(true);
+		boolean first = true;
+		while (changed.get()) {
+			changed.set(false);
+			for (int m : materials) {
+				byte[] table = values.get(m);
+				boolean markInvalid = first;
+				int chunks = (table.length + CHUNK - 1) / CHUNK;
+				IntStream.range(0, chunks).parallel().forEach(chunk -> {
+					if (pass(m, table, chunk * CHUNK, Math.min(table.length, (chunk + 1) * CHUNK),
+							markInvalid)) {
+						changed.set(true);
+					}
+				});
+			}
+			first = false;
+		}
+
+		for (int m : materials) {
+			byte[] table = values.get(m);
+			for (int i = 0; i < table.length; i++) {
+				if (table[i] == UNSOLVED) {
+					table[i] = DRAW;
+				}
+			}
+		}
+	}
+
+	// One pass over a range of a table; returns true if any position got solved
+	private boolean pass(int material, byte[] table, int from, int to, boolean markInvalid) {
+		Position position = new Position();
+		long[] moves = new long[MoveGenerator.MAX_MOVES];
+		boolean changed = false;
+
+		for (int i = from; i < to; i++) {
+			if (table[i] != UNSOLVED) {
+				continue;
+			}
+			int[] masks = Tablebase.position(material, i);
+			if (masks == null) {
+				if (markInvalid) {
+					table[i] = INVALID;
+				}
+				continue;
+			}
+			position.set(masks[0], masks[1], masks[2], Piece.WHITE);
+			int count = MoveGenerator.generate(position, Piece.WHITE, moves);
+			byte value = LOSS;
+			for (int m = 0; m < count && value != WIN; m++) {
+				position.makeMove(moves[m]);
+				byte next = lookup(position);
+				position.unmakeMove();
+				if (next == LOSS) {
+					value = WIN;
+				} else if (next != WIN) {
+					value = UNSOLVED;
+				}
+			}
+			if (value != UNSOLVED) {
+				table[i] = value;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	// Value of a position with black to move, for black
+	private byte lookup(Position position) {
+		int white = Integer.reverse(position.getBlack());
+		int black = Integer.reverse(position.getWhite());
+		int kings = Integer.reverse(position.getKings());
+		if (white == 0) {
+			return LOSS;
+		}
+		if (black == 0) {
+			return WIN;
+		}
+		byte[] table = values.get(Tablebase.material(white, black, kings));
+		return table[(int) Tablebase.index(white, black, kings)];
+	}
+
+	private static ArrayList<Integer> materials(int pieces, int men) {
+		ArrayList<Integer> materials = new ArrayList<Integer>();
+		for (int whiteMen = 0; whiteMen <= men; whiteMen++) {
+			int blackMen = men - whiteMen;
+			for (int whiteKings = 0; whiteKings <= pieces - men; whiteKings++) {
+				int blackKings = pieces - men - whiteKings;
+				if (whiteMen + whiteKings > 0 && blackMen + blackKings > 0) {
+					materials.add(Tablebase.material(whiteMen, whiteKings, blackMen, blackKings));
+				}
+			}
+		}
+		return materials;
+	}
+
+	private static int swap(int material) {
+		return Tablebase.material(Tablebase.blackMen(material), Tablebase.blackKings(material),
+				Tablebase.whiteMen(material), Tablebase.whiteKings(material));
+	}
+
+	private static String name(int material) {
+		return "W" + Tablebase.whiteMen(material) + "K" + Tablebase.whiteKings(material)
+				+ " B" + Tablebase.blackMen(material) + "K" + Tablebase.blackKings(material);
+	}
+
+   /**
+    * Checks a database on random positions. A position must be won if one
+    * of its moves leads to a lost position, lost if all of them lead to won
+    * ones or it has none, and drawn otherwise; a man standing on the row
+    * where it should have been crowned must be UNKNOWN.
+    * @param tablebase  the database to check.
+    * @param positions  the number of random positions.
+    * @param seed  the seed of the positions.
+    * @return int  the number of positions that do not agree.
+    */
+	public static int verify(Tablebase tablebase, int positions, long seed) {
+		Random random = new Random(seed);
+		Position position = new Position();
+		long[] moves = new long[MoveGenerator.MAX_MOVES];
+		int errors = 0;
+		for (int i = 0; i < positions; i++) {
+			boolean crowning = random.nextInt(8) == 0;
+			randomPosition(position, tablebase.getMaxPieces(), crowning, random);
+			int value = tablebase.probe(position);
+			int expected = crowning ? Tablebase.UNKNOWN : expected(tablebase, position, moves);
+			if (value != expected) {
+				errors++;
+				System.out.println("Mismatch: " + position.toFen() + " probed " + value + ", expected " + expected);
+			}
+		}
+		return errors;
+	}
+
+	// Value of a position from the probes of its successors
+	private static int expected(Tablebase tablebase, Position position, long[] moves) {
+		int count = MoveGenerator.generate(position, position.getSideToMove(), moves);
+		int value = Tablebase.LOSS;
+		for (int m = 0; m < count && value != Tablebase.WIN; m++) {
+			position.makeMove(moves[m]);
+			int next = tablebase.probe(position);
+			position.unmakeMove();
+			if (next == Tablebase.LOSS) {
+				value = Tablebase.WIN;
+			} else if (next != Tablebase.WIN) {
+				value = Tablebase.DRAW;
+			}
+		}
+		return value;
+	}
+
+	// Both players get a piece at least; with 'crowning' one more man
+	// stands on the row where it should have been crowned
+	private static void randomPosition(Position position, int maxPieces, boolean crowning, Random random) {
+		int pieces = 2 + random.nextInt(maxPieces - 1);
+		int white = 0;
+		int black = 0;
+		int kings = 0;
+		for (int i = 0; i < pieces; i++) {
+			boolean colour = i == 0 ? Piece.WHITE : i == 1 ? Piece.BLACK : random.nextBoolean();
+			boolean king = random.nextBoolean();
+			int crownRow = colour == Piece.WHITE ? Tablebase.WHITE_CROWN_ROW : Tablebase.BLACK_CROWN_ROW;
+			int sq;
+			do {
+				sq = random.nextInt(Position.SQUARES);
+			} while (((white | black) & 1 << sq) != 0 || (!king && (crownRow & 1 << sq) != 0));
+			if (king) {
+				kings |= 1 << sq;
+			}
+			if (colour == Piece.WHITE) {
+				white |= 1 << sq;
+			} else {
+				black |= 1 << sq;
+			}
+		}
+		if (crowning) {
+			boolean colour = random.nextBoolean();
+			int free = (colour == Piece.WHITE ? Tablebase.WHITE_CROWN_ROW : Tablebase.BLACK_CROWN_ROW)
+					& ~(white | black);
+			int sq = Integer.numberOfTrailingZeros(free);
+			if (colour == Piece.WHITE) {
+				white |= 1 << sq;
+			} else {
+				black |= 1 << sq;
+			}
+		}
+		position.set(white, black, kings, random.nextBoolean());
+	}
+
+   /**
+    * Generates a database and writes it to a file, or checks one.
+    * @param args  the maximum number of pieces and the output file, or
+    *              -verify, the file and optionally the number of positions.
+    */
+	public static void main(String args[]) throws IOException {
+		if (args.length >= 2 && args[0].equals("-verify")) {
+			int positions = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+			try (Tablebase tablebase = Tablebase.open(args[1])) {
+				int errors = verify(tablebase, positions, System.nanoTime());
+				System.out.println(positions + " positions checked, " + errors + " mismatches");
+			}
+			return;
+		}
+		if (args.length < 2) {
+			System.err.println("Usage: java LogicGame.TablebaseGenerator pieces file");
+			System.err.println("       java LogicGame.TablebaseGenerator -verify file [positions]");
+			return;
+		}
+		TablebaseGenerator generator = new TablebaseGenerator(Integer.parseInt(args[0]));
+		long start = System.nanoTime();
+		generator.generate();
+		generator.write(args[1]);
+		System.out.printf("Done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+	}
+}
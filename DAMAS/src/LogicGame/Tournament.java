@@ -0,0 +1,343 @@
+package LogicGame;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine against engine matches played in parallel, one game per thread
+ * at a time. Two players, A and B, differ by their search depth and their
+ * time per move. Every opening is played twice with the colours swapped,
+ * so the result does not depend on which side the openings favour.
+ *
+ * After each game the Elo difference of A over B is printed with its 95%
+ * error bar, and a sequential probability ratio test (SPRT) between
+ * elo0 and elo1 stops the match as soon as one of them is accepted.
+ *
+ * Openings are lines of moves in "a3 b4" notation separated by commas;
+ * without an openings file every position three plies from the start is
+ * used. Each game is saved with CheckersIO, opening moves included, so
+ * it can be loaded in the console or checked with BatchValidator.
+ *
+ * Run it as a program: java LogicGame.Tournament [options] output-directory
+ * with the options -games=N -threads=N -openings=file -timeA=ms -timeB=ms
+ * -depthA=N -depthB=N -networkA=file -networkB=file -hash=MB -elo0=E
+ * -elo1=E -alpha=P -beta=P. A player given a Network file scores its
+ * positions with it instead of the Evaluation tables.
+ *
+ * @version 1.0
+ */
+public class Tournament {
+
+	public final static int WIN = 1;
+	public final static int DRAW = 0;
+	public final static int LOSS = -1;
+
+	// Longer games are adjudicated as draws
+	public final static int MAX_PLIES = 300;
+	private final static int REPETITIONS_FOR_DRAW = 3;
+	private final static int OPENING_PLIES = 3;
+
+	private int games = 1000;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long[] timeMillis = { 100, 100 };
+	private int[] depth = { Engine.MAX_PLY - 1, Engine.MAX_PLY - 1 };
+	private Network[] network = new Network[2];
+	private int hashMegabytes = 4;
+	private double elo0 = 0;
+	private double elo1 = 10;
+	private double alpha = 0.05;
+	private double beta = 0.05;
+	private ArrayList<ArrayList<String>> openings;
+	private File output;
+
+	private int wins;
+	private int draws;
+	private int losses;
+	private String decision = "";
+	private final AtomicBoolean stop = new AtomicBoolean();
+	private final AtomicInteger nextGame = new AtomicInteger();
+
+   /**
+    * A worker thread: its own engines, their tables and its own position.
+    */
+	private class Worker implements Runnable {
+		final TranspositionTable[] tables = new TranspositionTable[2];
+		final Engine[] engines = new Engine[2];
+		final Position position = new Position();
+		final Position initial = new ChessBoard().getPosition();
+		final long[] buffer = new long[MoveGenerator.MAX_MOVES];
+		final int[] path = new int[Move.MAX_PATH];
+		final long[] hashes = new long[MAX_PLIES + 1];
+		final ArrayList<String> moves = new ArrayList<String>();
+
+		Worker() {
+			for (int i = 0; i < 2; i++) {
+				tables[i] = new TranspositionTable(hashMegabytes);
+				engines[i] = new Engine(tables[i]);
+				engines[i].setMaxDepth(depth[i]);
+				engines[i].setNetwork(network[i]);
+			}
+		}
+
+		public void run() {
+			int game;
+			while (!stop.get() && (game = nextGame.getAndIncrement()) < games) {
+				ArrayList<String> opening = openings.get((game / 2) % openings.size());
+				// Player A is white in even games and black in odd ones
+				boolean whiteA = (game & 1) == 0;
+				int result = play(opening, whiteA);
+				try {
+					save(game, moves);
+				} catch (IOException e) {
+					System.err.println(">> Game " + game + " can not be saved - " + e.getMessage());
+				}
+				record(game, result);
+			}
+		}
+
+		// Returns the result of player A
+		int play(ArrayList<String> opening, boolean whiteA) {
+			position.copyFrom(initial);
+			moves.clear();
+			for (String text : opening) {
+				long move = Move.parse(position, text, buffer, path);
+				if (move == Move.NONE) {
+					throw new IllegalArgumentException("Illegal opening move " + text);
+				}
+				moves.add(Move.toString(position, move, buffer));
+				position.play(move);
+			}
+			tables[0].clear();
+			tables[1].clear();
+
+			for (int ply = 0; ply < MAX_PLIES; ply++) {
+				hashes[ply] = position.getHash();
+				if (repetitions(ply) >= REPETITIONS_FOR_DRAW || position.getState() == Position.DRAW) {
+					return DRAW;
+				}
+				boolean moverIsA = (position.getSideToMove() == Piece.WHITE) == whiteA;
+				int player = moverIsA ? 0 : 1;
+				long move = engines[player].search(position, timeMillis[player]);
+				if (move == Move.NONE) {
+					return moverIsA ? LOSS : WIN;
+				}
+				moves.add(Move.toString(position, move, buffer));
+				position.play(move);
+			}
+			return DRAW;
+		}
+
+		int repetitions(int ply) {
+			int count = 0;
+			for (int i = ply; i >= 0; i -= 2) {
+				if (hashes[i] == hashes[ply]) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+
+	public Tournament(File output) {
+		this.output = output;
+	}
+
+   /**
+    * Plays the match and prints the final result.
+    * @exception InterruptedException if the thread is interrupted while waiting.
+    */
+	public void run() throws InterruptedException {
+		if (openings == null) {
+			openings = defaultOpenings();
+		}
+		output.mkdirs();
+		System.out.println(String.format(">> %d games on %d threads, %d openings, A: %d ms depth %d, "
+				+ "B: %d ms depth %d, SPRT elo0 %.1f elo1 %.1f", games, threads, openings.size(),
+				timeMillis[0], depth[0], timeMillis[1], depth[1], elo0, elo1));
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			pool.execute(new Worker());
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(">> Finished: " + summary() + decision + String.format(", %.1f games/min",
+				(wins + draws + losses) * 60 / seconds));
+	}
+
+	private synchronized void record(int game, int result) {
+		if (result == WIN) {
+			wins++;
+		} else if (result == LOSS) {
+			losses++;
+		} else {
+			draws++;
+		}
+		// Games still running when the test ends are counted, but do not change the decision
+		double llr = llr();
+		if (decision.isEmpty() && llr >= Math.log((1 - beta) / alpha)) {
+			decision = ", H1 accepted";
+			stop.set(true);
+		} else if (decision.isEmpty() && llr <= Math.log(beta / (1 - alpha))) {
+			decision = ", H0 accepted";
+			stop.set(true);
+		}
+		System.out.println(">> Game " + (game + 1) + ": " + (result == WIN ? "A" : result == LOSS ? "B" : "draw")
+				+ " - " + summary() + decision);
+	}
+
+	private String summary() {
+		int n = wins + draws + losses;
+		double score = score();
+		double margin = n < 2 ? Double.POSITIVE_INFINITY : 1.96 * Math.sqrt(variance() / n);
+		double elo = elo(score);
+		double error = (elo(Math.min(score + margin, 1)) - elo(Math.max(score - margin, 0))) / 2;
+		return String.format("+%d =%d -%d, Elo %.1f +/- %.1f, LLR %.2f (%.2f, %.2f)", wins, draws, losses,
+				elo, error, llr(), Math.log(beta / (1 - alpha)), Math.log((1 - beta) / alpha));
+	}
+
+	private double score() {
+		int n = wins + draws + losses;
+		return n == 0 ? 0.5 : (wins + 0.5 * draws) / n;
+	}
+
+	// Variance of the result of one game
+	private double variance() {
+		int n = wins + draws + losses;
+		double s = score();
+		return n == 0 ? 0 : (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / n;
+	}
+
+   /**
+    * Log-likelihood ratio of elo1 against elo0, with the normal
+    * approximation of the game results used by most engine testers.
+    */
+	private double llr() {
+		int n = wins + draws + losses;
+		double variance = variance();
+		if (n == 0 || variance == 0) {
+			return 0;
+		}
+		double s0 = expectedScore(elo0);
+		double s1 = expectedScore(elo1);
+		return n * (s1 - s0) * (2 * score() - s0 - s1) / (2 * variance);
+	}
+
+	private static double expectedScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+	private static double elo(double score) {
+		if (score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if (score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	private void save(int game, ArrayList<String> moves) throws IOException {
+		CheckersIO io = new CheckersIO();
+		io.setOutputFile(new File(output, String.format("game-%06d.txt", game + 1)).getPath());
+		io.write(moves);
+	}
+
+   /**
+    * Reads openings, one line of comma separated moves each.
+    * @param file  the openings file.
+    * @exception IOException if the file cannot be read.
+    */
+	public void readOpenings(String file) throws IOException {
+		openings = new ArrayList<ArrayList<String>>();
+		try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				ArrayList<String> opening = new ArrayList<String>();
+				for (String move : line.split(",")) {
+					if (!move.trim().isEmpty()) {
+						opening.add(move.trim());
+					}
+				}
+				if (!opening.isEmpty()) {
+					openings.add(opening);
+				}
+			}
+		}
+		if (openings.isEmpty()) {
+			throw new IOException("No openings in " + file);
+		}
+	}
+
+	// Every line of OPENING_PLIES moves from the initial position
+	private static ArrayList<ArrayList<String>> defaultOpenings() {
+		ArrayList<ArrayList<String>> lines = new ArrayList<ArrayList<String>>();
+		addOpenings(new ChessBoard().getPosition(), new ArrayList<String>(), lines);
+		return lines;
+	}
+
+	private static void addOpenings(Position position, ArrayList<String> line, ArrayList<ArrayList<String>> lines) {
+		if (line.size() == OPENING_PLIES) {
+			lines.add(new ArrayList<String>(line));
+			return;
+		}
+		long[] buffer = new long[MoveGenerator.MAX_MOVES];
+		long[] legal = new long[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generate(position, position.getSideToMove(), buffer);
+		for (int i = 0; i < count; i++) {
+			line.add(Move.toString(position, buffer[i], legal));
+			position.makeMove(buffer[i]);
+			addOpenings(position, line, lines);
+			position.unmakeMove();
+			line.remove(line.size() - 1);
+		}
+	}
+
+   /**
+    * Runs a match.
+    * @param args  the options and the output directory.
+    */
+	public static void main(String args[]) throws IOException, InterruptedException {
+		if (args.length == 0 || args[args.length - 1].startsWith("-")) {
+			System.err.println("Usage: java LogicGame.Tournament [-games=N] [-threads=N] [-openings=file] "
+					+ "[-timeA=ms] [-timeB=ms] [-depthA=N] [-depthB=N] "
+					+ "[-networkA=file] [-networkB=file] [-hash=MB] "
+					+ "[-elo0=E] [-elo1=E] [-alpha=P] [-beta=P] output-directory");
+			return;
+		}
+		Tournament tournament = new Tournament(new File(args[args.length - 1]));
+		for (int i = 0; i < args.length - 1; i++) {
+			String option = args[i].substring(0, args[i].indexOf('=') + 1);
+			String value = args[i].substring(option.length());
+			switch (option) {
+			case "-games=": tournament.games = Integer.parseInt(value); break;
+			case "-threads=": tournament.threads = Math.max(1, Integer.parseInt(value)); break;
+			case "-openings=": tournament.readOpenings(value); break;
+			case "-timeA=": tournament.timeMillis[0] = Long.parseLong(value); break;
+			case "-timeB=": tournament.timeMillis[1] = Long.parseLong(value); break;
+			case "-depthA=": tournament.depth[0] = Integer.parseInt(value); break;
+			case "-depthB=": tournament.depth[1] = Integer.parseInt(value); break;
+			case "-networkA=": tournament.network[0] = Network.load(value); break;
+			case "-networkB=": tournament.network[1] = Network.load(value); break;
+			case "-hash=": tournament.hashMegabytes = Integer.parseInt(value); break;
+			case "-elo0=": tournament.elo0 = Double.parseDouble(value); break;
+			case "-elo1=": tournament.elo1 = Double.parseDouble(value); break;
+			case "-alpha=": tournament.alpha = Double.parseDouble(value); break;
+			case "-beta=": tournament.beta = Double.parseDouble(value); break;
+			default:
+				System.err.println(">> Unknown option " + args[i]);
+				return;
+			}
+		}
+		tournament.run();
+	}
+}
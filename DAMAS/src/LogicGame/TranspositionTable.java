@@ -0,0 +1,148 @@
+package LogicGame;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table of the engine. Entries live in one flat long[] so the
+ * table has a fixed size, chosen in megabytes when it is created, and never
+ * produces garbage.
+ *
+ * Each entry is two longs: the position key XOR the data, and the data. A
+ * probe only accepts an entry when both words agree with the key, so a
+ * half-written entry from another thread is seen as a miss and the table
+ * can be shared by several search threads without locks.
+ *
+ * Entries are grouped in buckets of four (one 64-byte cache line). When a
+ * bucket is full the entry left by an older search, or else the shallowest
+ * one, is replaced.
+ *
+ * @version 1.0
+ */
+public class TranspositionTable {
+
+	public final static int EXACT = 1;
+	public final static int LOWER = 2;
+	public final static int UPPER = 3;
+
+	private final static int BUCKET_ENTRIES = 4;
+	private final static int BUCKET_LONGS = BUCKET_ENTRIES * 2;
+
+	// Data word: move (10 bits), bound (2), depth (8), age (8), score (32)
+	private final static int MOVE_MASK = 0x3FF;
+	private final static int BOUND_SHIFT = 10;
+	private final static int DEPTH_SHIFT = 12;
+	private final static int AGE_SHIFT = 20;
+	private final static int SCORE_SHIFT = 32;
+
+	private final long[] table;
+	private final int bucketMask;
+	private int age;
+
+   /**
+    * Creates a table using at most the given amount of memory.
+    * @param megabytes  the size of the table, rounded down to a power of two.
+    */
+	public TranspositionTable(int megabytes) {
+		long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+		long buckets = Long.highestOneBit(bytes / (BUCKET_LONGS * 8));
+		buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_LONGS));
+		table = new long[(int) buckets * BUCKET_LONGS];
+		bucketMask = (int) buckets - 1;
+	}
+
+   /**
+    * Starts a new search, so that entries from older searches get replaced first.
+    */
+	public void newSearch() {
+		age = (age + 1) & 0xFF;
+	}
+
+	public void clear() {
+		Arrays.fill(table, 0);
+	}
+
+   /**
+    * Looks a position up.
+    * @param key  the Zobrist key of the position.
+    * @return long  the data word of the entry, or 0 if the position is not stored.
+    */
+	public long probe(long key) {
+		int index = (int) key & bucketMask;
+		int base = index * BUCKET_LONGS;
+		for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+			long data = table[i + 1];
+			if ((table[i] ^ data) == key && data != 0) {
+				return data;
+			}
+		}
+		return 0;
+	}
+
+   /**
+    * Stores the result of a search.
+    * @param key  the Zobrist key of the position.
+    * @param move  the best packed move, or Move.NONE.
+    * @param bound  EXACT, LOWER or UPPER.
+    * @param depth  the depth searched.
+    * @param score  the score found.
+    */
+	public void store(long key, long move, int bound, int depth, int score) {
+		int base = ((int) key & bucketMask) * BUCKET_LONGS;
+		int victim = base;
+		int victimValue = Integer.MAX_VALUE;
+		for (int i = base; i < base + BUCKET_LONGS; i += 2) {
+			long data = table[i + 1];
+			if ((table[i] ^ data) == key || data == 0) {
+				victim = i;
+				if (move == Move.NONE && data != 0) {
+					move = moveOf(data);
+				}
+				break;
+			}
+			// Prefer replacing entries of older searches, then shallow ones
+			int value = depthOf(data) - (ageOf(data) == age ? 0 : 256);
+			if (value < victimValue) {
+				victimValue = value;
+				victim = i;
+			}
+		}
+		long data = ((long) score << SCORE_SHIFT)
+				| ((long) age << AGE_SHIFT)
+				| ((long) (depth & 0xFF) << DEPTH_SHIFT)
+				| ((long) bound << BOUND_SHIFT)
+				| (Move.from(move) | Move.to(move) << 5);
+		table[victim] = key ^ data;
+		table[victim + 1] = data;
+	}
+
+   /**
+    * Returns the best move of an entry packed as origin and destination
+    * only; it is meant to be compared with sameMove.
+    * @param data  a data word returned by probe.
+    * @return long  a move holding only the origin and destination squares.
+    */
+	public static long moveOf(long data) {
+		int move = (int) data & MOVE_MASK;
+		return move == 0 ? Move.NONE : Move.create(move & 0x1F, move >> 5, 0, false);
+	}
+
+	public static boolean sameMove(long move, long stored) {
+		return Move.from(move) == Move.from(stored) && Move.to(move) == Move.to(stored);
+	}
+
+	public static int boundOf(long data) {
+		return (int) (data >>> BOUND_SHIFT) & 3;
+	}
+
+	public static int depthOf(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+	}
+
+	public static int scoreOf(long data) {
+		return (int) (data >> SCORE_SHIFT);
+	}
+
+	private static int ageOf(long data) {
+		return (int) (data >>> AGE_SHIFT) & 0xFF;
+	}
+}
@@ -0,0 +1,59 @@
+package LogicGame;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dense layers of a Network on the Vector API. A block of outputs as wide
+ * as the vectors of the machine stays in one register while every input
+ * adds its row of weights to it, and is clipped and stored once at the end.
+ *
+ * Each output adds the same products in the same order as the scalar loop
+ * of Network, without fused multiply-adds, so both give the same scores
+ * and a search does not depend on which one runs.
+ *
+ * The class needs the incubator module: Network only loads it when the
+ * JVM was started with --add-modules jdk.incubator.vector.
+ *
+ * @version 1.0
+ */
+final class VectorDense {
+
+	private final static VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private VectorDense() {
+	}
+
+   /**
+    * Runs one layer clipped to 0..1.
+    * @param weights  the weights, stored by input.
+    * @param biases  the biases of the outputs.
+    * @param in  the input values.
+    * @param inputs  the number of inputs.
+    * @param out  buffer of the outputs.
+    * @param outputs  the number of outputs.
+    */
+	static void dense(float[] weights, float[] biases, float[] in, int inputs, float[] out, int outputs) {
+		int width = SPECIES.loopBound(outputs);
+		for (int o = 0; o < width; o += SPECIES.length()) {
+			FloatVector sum = FloatVector.fromArray(SPECIES, biases, o);
+			for (int i = 0; i < inputs; i++) {
+				float value = in[i];
+				if (value != 0f) {
+					sum = sum.add(FloatVector.fromArray(SPECIES, weights, i * outputs + o).mul(value));
+				}
+			}
+			sum.max(0f).min(1f).intoArray(out, o);
+		}
+		// Outputs left over when the layer is not a multiple of the vectors
+		for (int o = width; o < outputs; o++) {
+			float sum = biases[o];
+			for (int i = 0; i < inputs; i++) {
+				if (in[i] != 0f) {
+					sum += weights[i * outputs + o] * in[i];
+				}
+			}
+			out[o] = Math.min(Math.max(sum, 0f), 1f);
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package LogicGame;
+
+import java.util.Random;
+
+/**
+ * Zobrist keys of the positions. Every kind of piece on every square and
+ * the black turn have a random 64-bit key, and the key of a position is the
+ * XOR of the keys of what it contains. The keys come from a fixed seed so
+ * a position has the same key in every run and on every machine.
+ *
+ * @version 1.0
+ */
+public final class Zobrist {
+
+	public final static int WHITE_MAN = 0;
+	public final static int WHITE_KING = 1;
+	public final static int BLACK_MAN = 2;
+	public final static int BLACK_KING = 3;
+
+	final static long[][] PIECE = new long[4][Position.SQUARES];
+	final static long BLACK_TO_MOVE;
+
+	static {
+		Random random = new Random(0x44414D4153L);
+		for (int kind = 0; kind < 4; kind++) {
+			for (int sq = 0; sq < Position.SQUARES; sq++) {
+				PIECE[kind][sq] = random.nextLong();
+			}
+		}
+		BLACK_TO_MOVE = random.nextLong();
+	}
+
+	private Zobrist() {
+	}
+
+	public static int kind(boolean colour, boolean king) {
+		return (colour == Piece.WHITE ? WHITE_MAN : BLACK_MAN) + (king ? 1 : 0);
+	}
+
+   /**
+    * Computes the key of a position from scratch. Positions keep their key
+    * up to date on their own, this is meant to check it.
+    * @param position  the position to hash.
+    * @return long  the Zobrist key.
+    */
+	public static long compute(Position position) {
+		long key = position.getSideToMove() == Piece.WHITE ? 0 : BLACK_TO_MOVE;
+		int pieces = position.getOccupied();
+		while (pieces != 0) {
+			int sq = Integer.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			key ^= PIECE[kind(position.isWhite(sq), position.isKing(sq))][sq];
+		}
+		return key;
+	}
+}